@@ -0,0 +1,122 @@
+package ru.otus.core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Метрики работы с БД: время и число строк по каждому SQL, время транзакций и ожидания соединения из пула.
+ *
+ * <p>Заполняется обертками InstrumentedDbExecutor и InstrumentedTransactionRunner, ожидание соединения -
+ * трекером Hikari (DriverManagerDataSource). Запросы дольше порога пишутся в лог как медленные.
+ * Статистика доступна через snapshot() и как MXBean (registerMBean), порог можно менять на ходу.
+ */
+public class DbMetrics {
+    private static final Logger log = LoggerFactory.getLogger(DbMetrics.class);
+    // разных SQL больше этого не храним, остальные учитываются одной строкой
+    static final int MAX_STATEMENTS = 1_000;
+    private static final String OTHER_SQL = "<other>";
+
+    private final String name;
+    private final Map<String, StatementRecorder> statements = new ConcurrentHashMap<>();
+    private final LatencyRecorder transactions = new LatencyRecorder();
+    private final LatencyRecorder connectionAcquire = new LatencyRecorder();
+    private final LongAdder connectionTimeoutCount = new LongAdder();
+    private final LongAdder slowQueryCount = new LongAdder();
+    private volatile long slowQueryThresholdNanos;
+    private ObjectName objectName;
+
+    public DbMetrics(String name, Duration slowQueryThreshold) {
+        this.name = name;
+        setSlowQueryThreshold(slowQueryThreshold);
+    }
+
+    public void recordStatement(String sql, long nanos, long rows, boolean failed) {
+        var recorder = statementRecorder(sql);
+        recorder.latency().record(nanos, failed);
+        recorder.rows().add(rows);
+        if (nanos >= slowQueryThresholdNanos) {
+            slowQueryCount.increment();
+            log.warn("slow sql: {} ms, rows:{}, failed:{}, sql:{}", nanos / 1_000_000, rows, failed, sql);
+        }
+    }
+
+    public void recordTransaction(long nanos, boolean failed) {
+        transactions.record(nanos, failed);
+    }
+
+    public void recordConnectionAcquire(long nanos) {
+        connectionAcquire.record(nanos, false);
+    }
+
+    public void recordConnectionTimeout() {
+        connectionTimeoutCount.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Duration getSlowQueryThreshold() {
+        return Duration.ofNanos(slowQueryThresholdNanos);
+    }
+
+    public void setSlowQueryThreshold(Duration slowQueryThreshold) {
+        if (slowQueryThreshold.isNegative()) {
+            throw new IllegalArgumentException("slowQueryThreshold is negative: " + slowQueryThreshold);
+        }
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+    }
+
+    public DbMetricsSnapshot snapshot() {
+        var statementStats = statements.entrySet().stream()
+                .map(entry -> new SqlStats(
+                        entry.getKey(),
+                        entry.getValue().rows().sum(),
+                        entry.getValue().latency().snapshot()))
+                .sorted(Comparator.comparingLong((SqlStats stats) -> stats.latency().totalNanos())
+                        .reversed())
+                .toList();
+        return new DbMetricsSnapshot(
+                name,
+                statementStats,
+                transactions.snapshot(),
+                connectionAcquire.snapshot(),
+                connectionTimeoutCount.sum(),
+                slowQueryCount.sum());
+    }
+
+    /** Регистрирует статистику в platform MBeanServer как ru.otus:type=DbMetrics,name=[name] */
+    public synchronized void registerMBean() throws JMException {
+        var mbs = ManagementFactory.getPlatformMBeanServer();
+        var newObjectName = new ObjectName("ru.otus:type=DbMetrics,name=" + ObjectName.quote(name));
+        mbs.registerMBean(new DbStats(this), newObjectName);
+        objectName = newObjectName;
+    }
+
+    public synchronized void unregisterMBean() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    private StatementRecorder statementRecorder(String sql) {
+        // обычно запись уже есть: get без блокировок, computeIfAbsent только для нового SQL
+        var recorder = statements.get(sql);
+        if (recorder != null) {
+            return recorder;
+        }
+        var key = statements.size() < MAX_STATEMENTS ? sql : OTHER_SQL;
+        return statements.computeIfAbsent(key, k -> new StatementRecorder(new LatencyRecorder(), new LongAdder()));
+    }
+
+    private record StatementRecorder(LatencyRecorder latency, LongAdder rows) {}
+}
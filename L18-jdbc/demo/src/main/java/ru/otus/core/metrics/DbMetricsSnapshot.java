@@ -0,0 +1,45 @@
+package ru.otus.core.metrics;
+
+import java.util.List;
+
+/** Неизменяемый снимок DbMetrics; statements отсортированы по суммарному времени, самые дорогие первыми */
+public record DbMetricsSnapshot(
+        String name,
+        List<SqlStats> statements,
+        LatencyStats transactions,
+        LatencyStats connectionAcquire,
+        long connectionTimeoutCount,
+        long slowQueryCount) {
+    // в toString выводятся только самые дорогие запросы
+    private static final int TOP_STATEMENTS = 10;
+
+    public long statementCount() {
+        return statements.stream().mapToLong(stats -> stats.latency().count()).sum();
+    }
+
+    public long statementErrorCount() {
+        return statements.stream().mapToLong(stats -> stats.latency().errorCount()).sum();
+    }
+
+    @Override
+    public String toString() {
+        var text = new StringBuilder(String.format(
+                "DbMetrics{name=%s, statements=%d, statementErrors=%d, slowQueries=%d, transactions=%d,"
+                        + " transactionErrors=%d, avgTransaction=%.2f ms, avgConnectionAcquire=%.1f us,"
+                        + " maxConnectionAcquire=%.1f us, connectionTimeouts=%d}",
+                name,
+                statementCount(),
+                statementErrorCount(),
+                slowQueryCount,
+                transactions.count(),
+                transactions.errorCount(),
+                transactions.averageNanos() / 1_000_000,
+                connectionAcquire.averageNanos() / 1_000,
+                connectionAcquire.maxNanos() / 1_000.0,
+                connectionTimeoutCount));
+        statements.stream()
+                .limit(TOP_STATEMENTS)
+                .forEach(stats -> text.append(System.lineSeparator()).append("  ").append(stats));
+        return text.toString();
+    }
+}
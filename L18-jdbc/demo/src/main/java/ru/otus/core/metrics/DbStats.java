@@ -0,0 +1,76 @@
+package ru.otus.core.metrics;
+
+import java.time.Duration;
+
+class DbStats implements DbStatsMXBean {
+    private static final int TOP_STATEMENTS = 20;
+
+    private final DbMetrics metrics;
+
+    DbStats(DbMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public long getStatementCount() {
+        return metrics.snapshot().statementCount();
+    }
+
+    @Override
+    public long getStatementErrorCount() {
+        return metrics.snapshot().statementErrorCount();
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return metrics.snapshot().slowQueryCount();
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return metrics.getSlowQueryThreshold().toMillis();
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+        metrics.setSlowQueryThreshold(Duration.ofMillis(slowQueryThresholdMillis));
+    }
+
+    @Override
+    public long getTransactionCount() {
+        return metrics.snapshot().transactions().count();
+    }
+
+    @Override
+    public long getTransactionErrorCount() {
+        return metrics.snapshot().transactions().errorCount();
+    }
+
+    @Override
+    public double getAverageTransactionMillis() {
+        return metrics.snapshot().transactions().averageNanos() / 1_000_000;
+    }
+
+    @Override
+    public double getAverageConnectionAcquireMicros() {
+        return metrics.snapshot().connectionAcquire().averageNanos() / 1_000;
+    }
+
+    @Override
+    public double getMaxConnectionAcquireMicros() {
+        return metrics.snapshot().connectionAcquire().maxNanos() / 1_000.0;
+    }
+
+    @Override
+    public long getConnectionTimeoutCount() {
+        return metrics.snapshot().connectionTimeoutCount();
+    }
+
+    @Override
+    public String[] getTopStatements() {
+        return metrics.snapshot().statements().stream()
+                .limit(TOP_STATEMENTS)
+                .map(SqlStats::toString)
+                .toArray(String[]::new);
+    }
+}
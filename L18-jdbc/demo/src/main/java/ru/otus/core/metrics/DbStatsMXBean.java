@@ -0,0 +1,28 @@
+package ru.otus.core.metrics;
+
+public interface DbStatsMXBean {
+
+    long getStatementCount();
+
+    long getStatementErrorCount();
+
+    long getSlowQueryCount();
+
+    long getSlowQueryThresholdMillis();
+
+    void setSlowQueryThresholdMillis(long slowQueryThresholdMillis);
+
+    long getTransactionCount();
+
+    long getTransactionErrorCount();
+
+    double getAverageTransactionMillis();
+
+    double getAverageConnectionAcquireMicros();
+
+    double getMaxConnectionAcquireMicros();
+
+    long getConnectionTimeoutCount();
+
+    String[] getTopStatements();
+}
@@ -0,0 +1,41 @@
+package ru.otus.core.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Счетчики на LongAdder: запись из многих потоков без общей блокировки, сумма считается при снимке */
+final class LatencyRecorder {
+    private static final int HISTOGRAM_BUCKETS = 32;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] histogram = new LongAdder[HISTOGRAM_BUCKETS];
+
+    LatencyRecorder() {
+        for (var idx = 0; idx < histogram.length; idx++) {
+            histogram[idx] = new LongAdder();
+        }
+    }
+
+    void record(long nanos, boolean failed) {
+        count.increment();
+        if (failed) {
+            errorCount.increment();
+        }
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        long micros = nanos / 1_000;
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), HISTOGRAM_BUCKETS - 1);
+        histogram[bucket].increment();
+    }
+
+    LatencyStats snapshot() {
+        var buckets = new long[histogram.length];
+        for (var idx = 0; idx < buckets.length; idx++) {
+            buckets[idx] = histogram[idx].sum();
+        }
+        return new LatencyStats(count.sum(), errorCount.sum(), totalNanos.sum(), maxNanos.get(), buckets);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.otus.core.metrics;
+
+/**
+ * Неизменяемый снимок времени выполнения одного вида операций.
+ *
+ * <p>histogram[i] - число операций длительностью меньше 2^i микросекунд (и не меньше 2^(i-1)),
+ * последняя корзина - все, что дольше.
+ */
+public record LatencyStats(long count, long errorCount, long totalNanos, long maxNanos, long[] histogram) {
+
+    public double averageNanos() {
+        return count == 0 ? 0.0 : (double) totalNanos / count;
+    }
+
+    public long[] histogram() {
+        return histogram.clone();
+    }
+
+    /** Верхняя граница корзины, в которую укладывается доля quantile операций, например 0.99 */
+    public long quantileUpperBoundMicros(double quantile) {
+        long total = 0;
+        for (var bucketCount : histogram) {
+            total += bucketCount;
+        }
+        long target = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (var idx = 0; idx < histogram.length; idx++) {
+            seen += histogram[idx];
+            if (seen > 0 && seen >= target) {
+                return 1L << idx;
+            }
+        }
+        return 0;
+    }
+}
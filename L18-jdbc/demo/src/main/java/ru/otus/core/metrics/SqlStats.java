@@ -0,0 +1,19 @@
+package ru.otus.core.metrics;
+
+/** Статистика одного текста SQL: параметры передаются через ?, поэтому текст и есть форма запроса */
+public record SqlStats(String sql, long rowCount, LatencyStats latency) {
+
+    @Override
+    public String toString() {
+        return String.format(
+                "total=%d ms, count=%d, errors=%d, avg=%.2f ms, p99<=%d us, max=%.2f ms, rows=%d: %s",
+                latency.totalNanos() / 1_000_000,
+                latency.count(),
+                latency.errorCount(),
+                latency.averageNanos() / 1_000_000,
+                latency.quantileUpperBoundMicros(0.99),
+                latency.maxNanos() / 1_000_000.0,
+                rowCount,
+                sql);
+    }
+}
@@ -1,15 +1,54 @@
 package ru.otus.core.repository;
 
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface DataTemplate<T> {
     Optional<T> findById(Connection connection, long id);
 
     List<T> findAll(Connection connection);
 
+    /** Объекты по набору id: id -> объект, отсутствующих в базе id в ответе нет; реализации читают пачками */
+    default Map<Long, T> findAllById(Connection connection, long[] ids) {
+        var found = new HashMap<Long, T>();
+        for (var id : ids) {
+            findById(connection, id).ifPresent(object -> found.put(id, object));
+        }
+        return found;
+    }
+
+    /** До limit объектов с id больше afterId по возрастанию id; первая страница - afterId = 0 */
+    List<T> findPage(Connection connection, long afterId, int limit);
+
+    /**
+     * Передает все объекты в action по одному, не собирая их в список; реализации читают курсором,
+     * поэтому память не зависит от размера таблицы
+     */
+    default void forEach(Connection connection, Consumer<? super T> action) {
+        findAll(connection).forEach(action);
+    }
+
     long insert(Connection connection, T object);
 
     void update(Connection connection, T object);
+
+    /** Вставляет все объекты, возвращает их id в том же порядке; реализации могут делать это пачкой */
+    default List<Long> insertAll(Connection connection, List<T> objects) {
+        var ids = new ArrayList<Long>(objects.size());
+        for (var object : objects) {
+            ids.add(insert(connection, object));
+        }
+        return ids;
+    }
+
+    default void updateAll(Connection connection, List<T> objects) {
+        for (var object : objects) {
+            update(connection, object);
+        }
+    }
 }
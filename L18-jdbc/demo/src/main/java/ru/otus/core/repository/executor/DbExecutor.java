@@ -10,6 +10,20 @@ public interface DbExecutor {
 
     long executeStatement(Connection connection, String sql, List<Object> params);
 
+    long executeStatement(Connection connection, String sql, StatementBinder binder);
+
+    // без запроса сгенерированных ключей: для update и insert с id, выданным приложением; возвращает число строк
+    long executeUpdate(Connection connection, String sql, StatementBinder binder);
+
+    // один prepareStatement на все binders, отправка пачками через addBatch/executeBatch; возвращает все ключи
+    List<Long> executeBatch(Connection connection, String sql, List<StatementBinder> binders);
+
+    void executeBatchUpdate(Connection connection, String sql, List<StatementBinder> binders);
+
     <T> Optional<T> executeSelect(
             Connection connection, String sql, List<Object> params, Function<ResultSet, T> rsHandler);
+
+    // курсор: строки приходят с сервера порциями по fetchSize и передаются в rowCallback по одной
+    void executeSelectEach(
+            Connection connection, String sql, List<Object> params, int fetchSize, RowCallback rowCallback);
 }
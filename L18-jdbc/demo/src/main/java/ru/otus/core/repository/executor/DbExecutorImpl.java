@@ -4,29 +4,85 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import ru.otus.core.sessionmanager.DataBaseOperationException;
 
 public class DbExecutorImpl implements DbExecutor {
+    private static final int MAX_BATCH_SIZE = 1_000;
 
     @Override
     public long executeStatement(Connection connection, String sql, List<Object> params) {
-        try (var pst = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        return executeStatement(connection, sql, pst -> {
             for (var idx = 0; idx < params.size(); idx++) {
                 pst.setObject(idx + 1, params.get(idx));
             }
+        });
+    }
+
+    @Override
+    public long executeStatement(Connection connection, String sql, StatementBinder binder) {
+        try (var pst = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            binder.bind(pst);
             pst.executeUpdate();
+            // для update не все драйверы возвращают ключи (PostgreSQL - да, H2 - нет)
             try (var rs = pst.getGeneratedKeys()) {
-                rs.next();
-                return rs.getInt(1);
+                return rs.next() ? rs.getLong(1) : -1;
             }
         } catch (SQLException ex) {
             throw new DataBaseOperationException("executeInsert error", ex);
         }
     }
 
+    @Override
+    public long executeUpdate(Connection connection, String sql, StatementBinder binder) {
+        try (var pst = connection.prepareStatement(sql)) {
+            binder.bind(pst);
+            return pst.executeUpdate();
+        } catch (SQLException ex) {
+            throw new DataBaseOperationException("executeUpdate error", ex);
+        }
+    }
+
+    @Override
+    public List<Long> executeBatch(Connection connection, String sql, List<StatementBinder> binders) {
+        var keys = new ArrayList<Long>(binders.size());
+        try (var pst = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (var idx = 0; idx < binders.size(); idx++) {
+                binders.get(idx).bind(pst);
+                pst.addBatch();
+                if ((idx + 1) % MAX_BATCH_SIZE == 0 || idx == binders.size() - 1) {
+                    pst.executeBatch();
+                    try (var rs = pst.getGeneratedKeys()) {
+                        while (rs.next()) {
+                            keys.add(rs.getLong(1));
+                        }
+                    }
+                }
+            }
+            return keys;
+        } catch (SQLException ex) {
+            throw new DataBaseOperationException("executeBatch error", ex);
+        }
+    }
+
+    @Override
+    public void executeBatchUpdate(Connection connection, String sql, List<StatementBinder> binders) {
+        try (var pst = connection.prepareStatement(sql)) {
+            for (var idx = 0; idx < binders.size(); idx++) {
+                binders.get(idx).bind(pst);
+                pst.addBatch();
+                if ((idx + 1) % MAX_BATCH_SIZE == 0 || idx == binders.size() - 1) {
+                    pst.executeBatch();
+                }
+            }
+        } catch (SQLException ex) {
+            throw new DataBaseOperationException("executeBatchUpdate error", ex);
+        }
+    }
+
     @Override
     public <T> Optional<T> executeSelect(
             Connection connection, String sql, List<Object> params, Function<ResultSet, T> rsHandler) {
@@ -41,4 +97,34 @@ public class DbExecutorImpl implements DbExecutor {
             throw new DataBaseOperationException("executeSelect error", ex);
         }
     }
+
+    @Override
+    public void executeSelectEach(
+            Connection connection, String sql, List<Object> params, int fetchSize, RowCallback rowCallback) {
+        try {
+            // в режиме autocommit драйвер PostgreSQL игнорирует fetchSize и читает весь результат в память
+            boolean autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            try (var pst = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                pst.setFetchSize(fetchSize);
+                for (var idx = 0; idx < params.size(); idx++) {
+                    pst.setObject(idx + 1, params.get(idx));
+                }
+                try (var rs = pst.executeQuery()) {
+                    while (rs.next()) {
+                        rowCallback.processRow(rs);
+                    }
+                }
+            } finally {
+                if (autoCommit) {
+                    // включение autocommit завершает открытую для курсора транзакцию
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException ex) {
+            throw new DataBaseOperationException("executeSelectEach error", ex);
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package ru.otus.core.repository.executor;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import ru.otus.core.metrics.DbMetrics;
+
+/**
+ * Обертка над DbExecutor, которая записывает в DbMetrics время и число строк каждого запроса.
+ *
+ * <p>Строки: для select - размер результата (для коллекции) или 1, для insert/update - число строк в пачке.
+ * У executeSelectEach время включает обработку строк в rowCallback: курсор читается по мере обработки.
+ */
+public class InstrumentedDbExecutor implements DbExecutor {
+    private final DbExecutor delegate;
+    private final DbMetrics metrics;
+
+    public InstrumentedDbExecutor(DbExecutor delegate, DbMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public long executeStatement(Connection connection, String sql, List<Object> params) {
+        return measure(sql, id -> 1, () -> delegate.executeStatement(connection, sql, params));
+    }
+
+    @Override
+    public long executeStatement(Connection connection, String sql, StatementBinder binder) {
+        return measure(sql, id -> 1, () -> delegate.executeStatement(connection, sql, binder));
+    }
+
+    @Override
+    public long executeUpdate(Connection connection, String sql, StatementBinder binder) {
+        return measure(sql, rows -> rows, () -> delegate.executeUpdate(connection, sql, binder));
+    }
+
+    @Override
+    public List<Long> executeBatch(Connection connection, String sql, List<StatementBinder> binders) {
+        return measure(sql, List::size, () -> delegate.executeBatch(connection, sql, binders));
+    }
+
+    @Override
+    public void executeBatchUpdate(Connection connection, String sql, List<StatementBinder> binders) {
+        measure(sql, ignored -> binders.size(), () -> {
+            delegate.executeBatchUpdate(connection, sql, binders);
+            return null;
+        });
+    }
+
+    @Override
+    public <T> Optional<T> executeSelect(
+            Connection connection, String sql, List<Object> params, Function<ResultSet, T> rsHandler) {
+        return measure(
+                sql,
+                result -> result.map(value -> value instanceof Collection<?> collection ? collection.size() : 1)
+                        .orElse(0),
+                () -> delegate.executeSelect(connection, sql, params, rsHandler));
+    }
+
+    @Override
+    public void executeSelectEach(
+            Connection connection, String sql, List<Object> params, int fetchSize, RowCallback rowCallback) {
+        var rows = new long[1];
+        measure(sql, ignored -> rows[0], () -> {
+            delegate.executeSelectEach(connection, sql, params, fetchSize, rs -> {
+                rows[0]++;
+                rowCallback.processRow(rs);
+            });
+            return null;
+        });
+    }
+
+    private <T> T measure(String sql, ToLongFunction<T> rowCounter, Supplier<T> statement) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = statement.get();
+        } catch (RuntimeException e) {
+            metrics.recordStatement(sql, System.nanoTime() - start, 0, true);
+            throw e;
+        }
+        metrics.recordStatement(sql, System.nanoTime() - start, rowCounter.applyAsLong(result), false);
+        return result;
+    }
+}
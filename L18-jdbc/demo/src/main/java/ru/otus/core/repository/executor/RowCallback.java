@@ -0,0 +1,10 @@
+package ru.otus.core.repository.executor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/** Обрабатывает одну текущую строку курсора; сам resultSet.next() вызывает DbExecutor */
+@FunctionalInterface
+public interface RowCallback {
+    void processRow(ResultSet rs) throws SQLException;
+}
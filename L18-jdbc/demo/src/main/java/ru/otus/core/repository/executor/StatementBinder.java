@@ -0,0 +1,10 @@
+package ru.otus.core.repository.executor;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/** Заполняет параметры подготовленного запроса типизированными setXxx, без списка Object */
+@FunctionalInterface
+public interface StatementBinder {
+    void bind(PreparedStatement pst) throws SQLException;
+}
@@ -0,0 +1,40 @@
+package ru.otus.core.sessionmanager;
+
+import ru.otus.core.metrics.DbMetrics;
+
+/** Обертка над TransactionRunner, которая записывает в DbMetrics время каждой транзакции и ошибки */
+public class InstrumentedTransactionRunner implements TransactionRunner {
+    private final TransactionRunner delegate;
+    private final DbMetrics metrics;
+
+    public InstrumentedTransactionRunner(TransactionRunner delegate, DbMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public <T> T doInTransaction(TransactionAction<T> action) {
+        long start = System.nanoTime();
+        var failed = true;
+        try {
+            var result = delegate.doInTransaction(action);
+            failed = false;
+            return result;
+        } finally {
+            metrics.recordTransaction(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public <T> T doInReadOnlyTransaction(TransactionAction<T> action) {
+        long start = System.nanoTime();
+        var failed = true;
+        try {
+            var result = delegate.doInReadOnlyTransaction(action);
+            failed = false;
+            return result;
+        } finally {
+            metrics.recordTransaction(System.nanoTime() - start, failed);
+        }
+    }
+}
@@ -3,4 +3,9 @@ package ru.otus.core.sessionmanager;
 public interface TransactionRunner {
 
     <T> T doInTransaction(TransactionAction<T> action);
+
+    /** Транзакция только для чтения; реализации могут выполнять ее на отдельном источнике (реплике) */
+    default <T> T doInReadOnlyTransaction(TransactionAction<T> action) {
+        return doInTransaction(action);
+    }
 }
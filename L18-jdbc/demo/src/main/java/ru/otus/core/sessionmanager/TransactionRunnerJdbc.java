@@ -4,11 +4,22 @@ import java.sql.SQLException;
 import java.util.concurrent.Callable;
 import javax.sql.DataSource;
 
+/**
+ * Транзакции на соединениях из DataSource. Читающие транзакции идут в readDataSource, если он задан:
+ * так чтение не занимает соединения основного пула. Реплика может отставать от основной БД,
+ * поэтому только что записанные данные там видны не сразу.
+ */
 public class TransactionRunnerJdbc implements TransactionRunner {
     private final DataSource dataSource;
+    private final DataSource readDataSource;
 
     public TransactionRunnerJdbc(DataSource dataSource) {
+        this(dataSource, dataSource);
+    }
+
+    public TransactionRunnerJdbc(DataSource dataSource, DataSource readDataSource) {
         this.dataSource = dataSource;
+        this.readDataSource = readDataSource;
     }
 
     @Override
@@ -27,6 +38,33 @@ public class TransactionRunnerJdbc implements TransactionRunner {
         });
     }
 
+    /**
+     * Соединение помечается read-only: драйвер открывает read only транзакцию, и запись в ней - ошибка.
+     * Если у пула включен autocommit, каждая команда завершается сама и commit не отправляется вовсе.
+     * Признак read-only пул сбрасывает сам, когда соединение возвращается.
+     */
+    @Override
+    public <T> T doInReadOnlyTransaction(TransactionAction<T> action) {
+        return wrapException(() -> {
+            try (var connection = readDataSource.getConnection()) {
+                connection.setReadOnly(true);
+                boolean autoCommit = connection.getAutoCommit();
+                try {
+                    var result = action.apply(connection);
+                    if (!autoCommit) {
+                        connection.commit();
+                    }
+                    return result;
+                } catch (SQLException ex) {
+                    if (!autoCommit) {
+                        connection.rollback();
+                    }
+                    throw new DataBaseOperationException("doInReadOnlyTransaction exception", ex);
+                }
+            }
+        });
+    }
+
     private <T> T wrapException(Callable<T> action) {
         try {
             return action.call();
@@ -2,17 +2,32 @@ package ru.otus.crm.datasource;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
 import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.logging.Logger;
 import javax.sql.DataSource;
+import ru.otus.core.metrics.DbMetrics;
 
 public class DriverManagerDataSource implements DataSource {
     private DataSource dataSourcePool;
 
     public DriverManagerDataSource(String url, String user, String pwd) {
-        createConnectionPool(url, user, pwd);
+        createConnectionPool(url, user, pwd, null, false);
+    }
+
+    /** Время ожидания соединения из пула и таймауты пул передает в metrics */
+    public DriverManagerDataSource(String url, String user, String pwd, DbMetrics metrics) {
+        createConnectionPool(url, user, pwd, metrics, false);
+    }
+
+    /**
+     * readOnly - отдельный пул для чтения (например, к реплике): соединения read-only и с autocommit,
+     * поэтому чтение не тратит запросы на begin/commit
+     */
+    public DriverManagerDataSource(String url, String user, String pwd, DbMetrics metrics, boolean readOnly) {
+        createConnectionPool(url, user, pwd, metrics, readOnly);
     }
 
     @Override
@@ -60,16 +75,17 @@ public class DriverManagerDataSource implements DataSource {
         throw new UnsupportedOperationException();
     }
 
-    private void createConnectionPool(String url, String user, String pwd) {
+    private void createConnectionPool(String url, String user, String pwd, DbMetrics metrics, boolean readOnly) {
         var config = new HikariConfig();
         config.setJdbcUrl(url);
         config.setConnectionTimeout(3000); // ms
         config.setIdleTimeout(60000); // ms
         config.setMaxLifetime(600000); // ms
-        config.setAutoCommit(false);
+        config.setAutoCommit(readOnly);
+        config.setReadOnly(readOnly);
         config.setMinimumIdle(5);
         config.setMaximumPoolSize(10);
-        config.setPoolName("DemoHiPool");
+        config.setPoolName(readOnly ? "DemoHiReadPool" : "DemoHiPool");
         config.setRegisterMbeans(true);
 
         config.addDataSourceProperty("cachePrepStmts", "true");
@@ -79,6 +95,20 @@ public class DriverManagerDataSource implements DataSource {
         config.setUsername(user);
         config.setPassword(pwd);
 
+        if (metrics != null) {
+            config.setMetricsTrackerFactory((poolName, poolStats) -> new IMetricsTracker() {
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    metrics.recordConnectionAcquire(elapsedAcquiredNanos);
+                }
+
+                @Override
+                public void recordConnectionTimeout() {
+                    metrics.recordConnectionTimeout();
+                }
+            });
+        }
+
         dataSourcePool = new HikariDataSource(config);
     }
 }
@@ -3,15 +3,20 @@ package ru.otus.crm.repository;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import ru.otus.core.repository.DataTemplate;
 import ru.otus.core.repository.DataTemplateException;
 import ru.otus.core.repository.executor.DbExecutor;
 import ru.otus.crm.model.Client;
 
 public class ClientDataTemplateJdbc implements DataTemplate<Client> {
+    private static final int FETCH_SIZE = 1_000;
 
     private final DbExecutor dbExecutor;
 
@@ -50,6 +55,47 @@ public class ClientDataTemplateJdbc implements DataTemplate<Client> {
                 .orElseThrow(() -> new RuntimeException("Unexpected error"));
     }
 
+    /** Один SQL на любое число id: массив передается одним параметром в = any(?) */
+    @Override
+    public Map<Long, Client> findAllById(Connection connection, long[] ids) {
+        Object idArray;
+        try {
+            idArray = connection.createArrayOf("bigint", Arrays.stream(ids).boxed().toArray());
+        } catch (SQLException e) {
+            throw new DataTemplateException(e);
+        }
+        var clients = new HashMap<Long, Client>();
+        dbExecutor.executeSelectEach(
+                connection,
+                "select id, name from client where id = any(?)",
+                List.of(idArray),
+                FETCH_SIZE,
+                rs -> clients.put(rs.getLong(1), new Client(rs.getLong(1), rs.getString(2))));
+        return clients;
+    }
+
+    @Override
+    public List<Client> findPage(Connection connection, long afterId, int limit) {
+        var clientList = new ArrayList<Client>();
+        dbExecutor.executeSelectEach(
+                connection,
+                "select id, name from client where id > ? order by id limit ?",
+                List.of(afterId, limit),
+                limit,
+                rs -> clientList.add(new Client(rs.getLong(1), rs.getString(2))));
+        return clientList;
+    }
+
+    @Override
+    public void forEach(Connection connection, Consumer<? super Client> action) {
+        dbExecutor.executeSelectEach(
+                connection,
+                "select id, name from client",
+                Collections.emptyList(),
+                FETCH_SIZE,
+                rs -> action.accept(new Client(rs.getLong(1), rs.getString(2))));
+    }
+
     @Override
     public long insert(Connection connection, Client client) {
         try {
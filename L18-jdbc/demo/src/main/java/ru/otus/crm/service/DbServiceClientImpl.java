@@ -36,7 +36,7 @@ public class DbServiceClientImpl implements DBServiceClient {
 
     @Override
     public Optional<Client> getClient(long id) {
-        return transactionRunner.doInTransaction(connection -> {
+        return transactionRunner.doInReadOnlyTransaction(connection -> {
             var clientOptional = dataTemplate.findById(connection, id);
             log.info("client: {}", clientOptional);
             return clientOptional;
@@ -45,7 +45,7 @@ public class DbServiceClientImpl implements DBServiceClient {
 
     @Override
     public List<Client> findAll() {
-        return transactionRunner.doInTransaction(connection -> {
+        return transactionRunner.doInReadOnlyTransaction(connection -> {
             var clientList = dataTemplate.findAll(connection);
             log.info("clientList:{}", clientList);
             return clientList;
@@ -36,7 +36,7 @@ public class DbServiceManagerImpl implements DBServiceManager {
 
     @Override
     public Optional<Manager> getManager(long no) {
-        return transactionRunner.doInTransaction(connection -> {
+        return transactionRunner.doInReadOnlyTransaction(connection -> {
             var managerOptional = managerDataTemplate.findById(connection, no);
             log.info("manager: {}", managerOptional);
             return managerOptional;
@@ -45,7 +45,7 @@ public class DbServiceManagerImpl implements DBServiceManager {
 
     @Override
     public List<Manager> findAll() {
-        return transactionRunner.doInTransaction(connection -> {
+        return transactionRunner.doInReadOnlyTransaction(connection -> {
             var managerList = managerDataTemplate.findAll(connection);
             log.info("managerList:{}", managerList);
             return managerList;
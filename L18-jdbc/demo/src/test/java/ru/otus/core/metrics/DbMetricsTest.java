@@ -0,0 +1,61 @@
+package ru.otus.core.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("DbMetrics ")
+class DbMetricsTest {
+
+    @Test
+    @DisplayName(" сверх MAX_STATEMENTS разных SQL учитывает новые запросы одной строкой <other>")
+    void shouldCollapseNewStatementsIntoOtherOverLimit() {
+        // given
+        var metrics = new DbMetrics("test", Duration.ofHours(1));
+        for (var idx = 0; idx < DbMetrics.MAX_STATEMENTS; idx++) {
+            metrics.recordStatement("select " + idx, 1_000, 1, false);
+        }
+
+        // when
+        for (var idx = 0; idx < 5; idx++) {
+            metrics.recordStatement("update " + idx, 1_000, 2, idx == 0);
+        }
+        metrics.recordStatement("select 0", 1_000, 1, false);
+
+        // then
+        var snapshot = metrics.snapshot();
+        assertThat(snapshot.statements()).hasSize(DbMetrics.MAX_STATEMENTS + 1);
+        assertThat(snapshot.statementCount()).isEqualTo(DbMetrics.MAX_STATEMENTS + 6);
+        assertThat(snapshot.statementErrorCount()).isEqualTo(1);
+        var other = snapshot.statements().stream()
+                .filter(stats -> stats.sql().equals("<other>"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(other.latency().count()).isEqualTo(5);
+        assertThat(other.latency().errorCount()).isEqualTo(1);
+        assertThat(other.rowCount()).isEqualTo(10);
+        var known = snapshot.statements().stream()
+                .filter(stats -> stats.sql().equals("select 0"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(known.latency().count()).isEqualTo(2);
+        assertThat(snapshot.statements()).noneMatch(stats -> stats.sql().startsWith("update"));
+    }
+
+    @Test
+    @DisplayName(" считает медленными запросы не быстрее порога")
+    void shouldCountSlowQueries() {
+        // given
+        var metrics = new DbMetrics("test", Duration.ofMillis(10));
+
+        // when
+        metrics.recordStatement("select 1", Duration.ofMillis(9).toNanos(), 1, false);
+        metrics.recordStatement("select 1", Duration.ofMillis(10).toNanos(), 1, false);
+        metrics.recordStatement("select 2", Duration.ofMillis(50).toNanos(), 0, true);
+
+        // then
+        assertThat(metrics.snapshot().slowQueryCount()).isEqualTo(2);
+    }
+}
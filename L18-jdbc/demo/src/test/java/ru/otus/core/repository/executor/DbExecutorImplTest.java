@@ -0,0 +1,113 @@
+package ru.otus.core.repository.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.core.sessionmanager.DataBaseOperationException;
+
+@DisplayName("Чтение курсором в DbExecutorImpl ")
+class DbExecutorImplTest {
+    private static final String URL_TEMPLATE =
+            "jdbc:h2:mem:%s;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String SELECT_SQL = "select id, name from item where id > ? order by id";
+
+    private final DbExecutorImpl dbExecutor = new DbExecutorImpl();
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL_TEMPLATE.formatted("cursor" + System.nanoTime()), "sa", "");
+        try (var statement = connection.createStatement()) {
+            statement.execute("create table item (id bigint primary key, name varchar(50))");
+            statement.execute("insert into item values (1, 'a'), (2, 'b'), (3, 'c'), (4, 'd'), (5, 'e')");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.setAutoCommit(true);
+        try (var statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        connection.close();
+    }
+
+    @Test
+    @DisplayName(" передает в callback все строки, даже если их больше fetchSize, и возвращает autocommit")
+    void shouldReadAllRowsAndRestoreAutoCommit() throws SQLException {
+        // given
+        var names = new ArrayList<String>();
+
+        // when
+        dbExecutor.executeSelectEach(connection, SELECT_SQL, List.of(1L), 2, rs -> names.add(rs.getString("name")));
+
+        // then
+        assertThat(names).containsExactly("b", "c", "d", "e");
+        assertThat(connection.getAutoCommit()).isTrue();
+    }
+
+    @Test
+    @DisplayName(" возвращает autocommit, если callback бросил исключение")
+    void shouldRestoreAutoCommitWhenCallbackFails() throws SQLException {
+        // when
+        assertThatThrownBy(() -> dbExecutor.executeSelectEach(connection, SELECT_SQL, List.of(0L), 2, rs -> {
+                    throw new IllegalStateException("callback");
+                }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("callback");
+
+        // then
+        assertThat(connection.getAutoCommit()).isTrue();
+    }
+
+    @Test
+    @DisplayName(" возвращает autocommit и оборачивает SQLException, если запрос не выполнился")
+    void shouldRestoreAutoCommitWhenQueryFails() throws SQLException {
+        // when
+        assertThatThrownBy(() -> dbExecutor.executeSelectEach(
+                        connection, "select id from missing_table", List.of(), 2, rs -> {}))
+                .isInstanceOf(DataBaseOperationException.class)
+                .hasMessage("executeSelectEach error")
+                .hasCauseInstanceOf(SQLException.class);
+
+        // then
+        assertThat(connection.getAutoCommit()).isTrue();
+    }
+
+    @Test
+    @DisplayName(" внутри транзакции не меняет autocommit и не завершает транзакцию")
+    void shouldKeepOuterTransactionOpen() throws SQLException {
+        // given
+        connection.setAutoCommit(false);
+        try (var statement = connection.createStatement()) {
+            statement.execute("insert into item values (6, 'f')");
+        }
+        var ids = new ArrayList<Long>();
+
+        // when
+        dbExecutor.executeSelectEach(connection, SELECT_SQL, List.of(4L), 2, rs -> ids.add(rs.getLong("id")));
+        connection.rollback();
+
+        // then
+        assertThat(ids).containsExactly(5L, 6L);
+        assertThat(connection.getAutoCommit()).isFalse();
+        assertThat(countItems()).isEqualTo(5);
+    }
+
+    private long countItems() throws SQLException {
+        try (var statement = connection.createStatement();
+                var resultSet = statement.executeQuery("select count(*) from item")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
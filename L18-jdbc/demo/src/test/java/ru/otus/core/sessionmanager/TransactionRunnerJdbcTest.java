@@ -0,0 +1,109 @@
+package ru.otus.core.sessionmanager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("TransactionRunnerJdbc ")
+class TransactionRunnerJdbcTest {
+    private final DataSource dataSource = mock(DataSource.class);
+    private final DataSource readDataSource = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final Connection readConnection = mock(Connection.class);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        given(dataSource.getConnection()).willReturn(connection);
+        given(readDataSource.getConnection()).willReturn(readConnection);
+    }
+
+    @Test
+    @DisplayName(" выполняет читающую транзакцию на read-only соединении из readDataSource")
+    void shouldRouteReadOnlyTransactionToReadDataSource() throws SQLException {
+        // given
+        var runner = new TransactionRunnerJdbc(dataSource, readDataSource);
+
+        // when
+        var used = runner.doInReadOnlyTransaction(conn -> conn);
+
+        // then
+        assertThat(used).isSameAs(readConnection);
+        then(readConnection).should().setReadOnly(true);
+        then(readConnection).should().commit();
+        then(readConnection).should().close();
+        then(dataSource).should(never()).getConnection();
+    }
+
+    @Test
+    @DisplayName(" выполняет пишущую транзакцию на основном DataSource")
+    void shouldRouteTransactionToPrimaryDataSource() throws SQLException {
+        // given
+        var runner = new TransactionRunnerJdbc(dataSource, readDataSource);
+
+        // when
+        var used = runner.doInTransaction(conn -> conn);
+
+        // then
+        assertThat(used).isSameAs(connection);
+        then(connection).should(never()).setReadOnly(true);
+        then(connection).should().commit();
+        then(readDataSource).should(never()).getConnection();
+    }
+
+    @Test
+    @DisplayName(" без readDataSource читает из основного DataSource, тоже в режиме read-only")
+    void shouldUsePrimaryDataSourceForReadsByDefault() throws SQLException {
+        // given
+        var runner = new TransactionRunnerJdbc(dataSource);
+
+        // when
+        var used = runner.doInReadOnlyTransaction(conn -> conn);
+
+        // then
+        assertThat(used).isSameAs(connection);
+        then(connection).should().setReadOnly(true);
+        then(readDataSource).should(never()).getConnection();
+    }
+
+    @Test
+    @DisplayName(" в режиме autocommit не отправляет commit для читающей транзакции")
+    void shouldSkipCommitInAutoCommitMode() throws SQLException {
+        // given
+        given(readConnection.getAutoCommit()).willReturn(true);
+        var runner = new TransactionRunnerJdbc(dataSource, readDataSource);
+
+        // when
+        runner.doInReadOnlyTransaction(conn -> "result");
+
+        // then
+        then(readConnection).should(never()).commit();
+        then(readConnection).should(never()).rollback();
+    }
+
+    @Test
+    @DisplayName(" откатывает читающую транзакцию, если commit не удался")
+    void shouldRollbackReadOnlyTransactionOnCommitError() throws SQLException {
+        // given
+        willThrow(new SQLException("commit")).given(readConnection).commit();
+        var runner = new TransactionRunnerJdbc(dataSource, readDataSource);
+
+        // when
+        assertThatThrownBy(() -> runner.doInReadOnlyTransaction(conn -> "result"))
+                .isInstanceOf(DataBaseOperationException.class);
+
+        // then
+        then(readConnection).should().rollback();
+        then(readConnection).should().close();
+    }
+}
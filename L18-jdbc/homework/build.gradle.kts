@@ -4,4 +4,11 @@ dependencies {
     implementation("ch.qos.logback:logback-classic")
     implementation("org.flywaydb:flyway-core")
     implementation("org.postgresql:postgresql")
+
+    testAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess")
+    testImplementation("org.openjdk.jmh:jmh-core")
+    testImplementation("com.h2database:h2")
+    testImplementation("org.junit.jupiter:junit-jupiter-engine")
+    testImplementation("org.junit.jupiter:junit-jupiter-params")
+    testImplementation("org.assertj:assertj-core")
 }
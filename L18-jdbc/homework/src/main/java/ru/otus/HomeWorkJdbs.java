@@ -1,10 +1,17 @@
 package ru.otus;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import javax.management.JMException;
 import javax.sql.DataSource;
 import org.flywaydb.core.Flyway;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ru.otus.core.metrics.DbMetrics;
 import ru.otus.core.repository.executor.DbExecutorImpl;
+import ru.otus.core.repository.executor.InstrumentedDbExecutor;
+import ru.otus.core.sessionmanager.InstrumentedTransactionRunner;
 import ru.otus.core.sessionmanager.TransactionRunnerJdbc;
 import ru.otus.crm.datasource.DriverManagerDataSource;
 import ru.otus.crm.model.Client;
@@ -22,15 +29,23 @@ public class HomeWorkJdbs {
     private static final String URL = "jdbc:postgresql://localhost:5430/demoDB";
     private static final String USER = "usr";
     private static final String PASSWORD = "pwd";
+    // реплика для чтения; здесь та же БД, на стенде - адрес второго экземпляра
+    private static final String READ_URL = URL;
+    private static final int BULK_SIZE = 1_000;
+    private static final Duration SLOW_QUERY_THRESHOLD = Duration.ofMillis(100);
 
     private static final Logger log = LoggerFactory.getLogger(HomeWorkJdbs.class);
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws JMException {
         // Общая часть
-        var dataSource = new DriverManagerDataSource(URL, USER, PASSWORD);
+        var dbMetrics = new DbMetrics("HomeWorkJdbs", SLOW_QUERY_THRESHOLD);
+        dbMetrics.registerMBean();
+        var dataSource = new DriverManagerDataSource(URL, USER, PASSWORD, dbMetrics);
         flywayMigrations(dataSource);
-        var transactionRunner = new TransactionRunnerJdbc(dataSource);
-        var dbExecutor = new DbExecutorImpl();
+        var readDataSource = new DriverManagerDataSource(READ_URL, USER, PASSWORD, dbMetrics, true);
+        var transactionRunner =
+                new InstrumentedTransactionRunner(new TransactionRunnerJdbc(dataSource, readDataSource), dbMetrics);
+        var dbExecutor = new InstrumentedDbExecutor(new DbExecutorImpl(), dbMetrics);
 
         // Работа с клиентом
         EntityClassMetaData<Client> entityClassMetaDataClient = new EntityClassMetaDataImpl<>(Client.class);
@@ -65,6 +80,34 @@ public class HomeWorkJdbs {
                 .getManager(managerSecond.getNo())
                 .orElseThrow(() -> new RuntimeException("Manager not found, id:" + managerSecond.getNo()));
         log.info("managerSecondSelected:{}", managerSecondSelected);
+
+        // Пакетная вставка: несколько запросов на всю пачку вместо запроса на каждую строку
+        var bulkClients = IntStream.range(0, BULK_SIZE)
+                .mapToObj(idx -> new Client("bulkClient" + idx))
+                .toList();
+        var bulkClientIds = transactionRunner.doInTransaction(
+                connection -> dataTemplateClient.insertAll(connection, bulkClients));
+        var bulkManagers = IntStream.range(0, BULK_SIZE)
+                .mapToObj(idx -> new Manager("bulkManager" + idx))
+                .toList();
+        var bulkManagerIds = transactionRunner.doInTransaction(
+                connection -> dataTemplateManager.insertAll(connection, bulkManagers));
+        log.info("bulk inserted clients:{}, managers:{}", bulkClientIds.size(), bulkManagerIds.size());
+
+        // Чтение курсором: строки обрабатываются по мере получения, список всей таблицы не создается
+        var bulkClientsRead = new AtomicLong();
+        transactionRunner.doInReadOnlyTransaction(connection -> {
+            dataTemplateClient.forEach(connection, client -> {
+                if (client.getName().startsWith("bulkClient")) {
+                    bulkClientsRead.incrementAndGet();
+                }
+            });
+            return null;
+        });
+        log.info("bulk clients read by cursor:{}", bulkClientsRead.get());
+
+        log.info("{}", dbMetrics.snapshot());
+        dbMetrics.unregisterMBean();
     }
 
     private static void flywayMigrations(DataSource dataSource) {
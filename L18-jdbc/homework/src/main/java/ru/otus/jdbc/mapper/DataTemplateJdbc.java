@@ -1,32 +1,78 @@
 package ru.otus.jdbc.mapper;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 import ru.otus.core.repository.DataTemplate;
+import ru.otus.core.repository.DataTemplateException;
 import ru.otus.core.repository.executor.DbExecutor;
+import ru.otus.core.repository.executor.StatementBinder;
 
 /** Сохраняет объект в базу, читает объект из базы */
 @SuppressWarnings("java:S1068")
 public class DataTemplateJdbc<T> implements DataTemplate<T> {
+    // строк в одном insert ... values(...),(...); остаток вставляется построчным batch
+    private static final int INSERT_CHUNK_ROWS = 64;
+    // размеры пачек findAllById по возрастанию: разных SQL всего столько, сколько размеров
+    private static final int[] FIND_BY_IDS_CHUNK_SIZES = {1, 4, 16, 64};
+    // строк в одной порции курсора forEach
+    private static final int FETCH_SIZE = 1_000;
+    // должен совпадать с increment by последовательностей (миграция V3)
+    private static final int ID_BLOCK_SIZE = 50;
+    // сколько последних прочитанных объектов помнит отслеживание изменений
+    private static final int DIRTY_TRACKING_SNAPSHOTS = 10_000;
 
     private final DbExecutor dbExecutor;
     private final EntitySQLMetaData entitySQLMetaData;
     private final EntityClassMetaData<T> entityClassMetaData;
+    private final EntityMapper<T> entityMapper;
+    private final IdGenerator idGenerator;
+    private final DirtyTracker<T> dirtyTracker;
 
+    /** id берутся блоками из последовательности bigserial-колонки: <таблица>_<id>_seq */
     public DataTemplateJdbc(
             DbExecutor dbExecutor, EntitySQLMetaData entitySQLMetaData, EntityClassMetaData<T> entityClassMetaData) {
+        this(
+                dbExecutor,
+                entitySQLMetaData,
+                entityClassMetaData,
+                new PooledSequenceIdGenerator(dbExecutor, sequenceName(entityClassMetaData), ID_BLOCK_SIZE));
+    }
+
+    public DataTemplateJdbc(
+            DbExecutor dbExecutor,
+            EntitySQLMetaData entitySQLMetaData,
+            EntityClassMetaData<T> entityClassMetaData,
+            IdGenerator idGenerator) {
+        this(dbExecutor, entitySQLMetaData, entityClassMetaData, idGenerator, false);
+    }
+
+    /**
+     * dirtyTracking - запоминать прочитанные значения и писать в update только измененные колонки,
+     * а update объекта без изменений не выполнять совсем. Сравнение идет только с чтением
+     * на том же соединении (в той же транзакции), иначе update пишет все колонки.
+     */
+    public DataTemplateJdbc(
+            DbExecutor dbExecutor,
+            EntitySQLMetaData entitySQLMetaData,
+            EntityClassMetaData<T> entityClassMetaData,
+            IdGenerator idGenerator,
+            boolean dirtyTracking) {
         this.dbExecutor = dbExecutor;
         this.entitySQLMetaData = entitySQLMetaData;
         this.entityClassMetaData = entityClassMetaData;
+        this.entityMapper = entityClassMetaData.getMapper();
+        this.idGenerator = idGenerator;
+        this.dirtyTracker = dirtyTracking ? new DirtyTracker<>(entityMapper, DIRTY_TRACKING_SNAPSHOTS) : null;
     }
 
     @Override
@@ -35,14 +81,11 @@ public class DataTemplateJdbc<T> implements DataTemplate<T> {
         return dbExecutor.executeSelect(connection, selectQuery, List.of(id), resultSet -> {
             try {
                 if (resultSet.next()) {
-                    var constructor = entityClassMetaData.getConstructor();
-                    var idField = entityClassMetaData.getIdField();
-                    var fieldsWithoutId = entityClassMetaData.getFieldsWithoutId();
-                    return getEntity(resultSet, fieldsWithoutId, idField, constructor);
+                    return map(connection, resultSet);
                 }
                 return null;
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+            } catch (SQLException e) {
+                throw new DataTemplateException(e);
             }
         });
     }
@@ -53,62 +96,206 @@ public class DataTemplateJdbc<T> implements DataTemplate<T> {
         return dbExecutor
                 .executeSelect(connection, selectQuery, Collections.emptyList(), resultSet -> {
                     try {
-                        var constructor = entityClassMetaData.getConstructor();
-                        var idField = entityClassMetaData.getIdField();
-                        var fieldsWithoutId = entityClassMetaData.getFieldsWithoutId();
                         var result = new ArrayList<T>();
                         while (resultSet.next()) {
-                            result.add(getEntity(resultSet, fieldsWithoutId, idField, constructor));
+                            result.add(map(connection, resultSet));
                         }
                         return result;
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
+                    } catch (SQLException e) {
+                        throw new DataTemplateException(e);
                     }
                 })
                 .orElse(new ArrayList<>());
     }
 
+    /**
+     * Полные пачки идут запросом на максимальный размер, а для остатка берется ближайший больший размер,
+     * недостающие параметры заполняются повтором последнего id
+     */
+    @Override
+    public Map<Long, T> findAllById(Connection connection, long[] ids) {
+        var distinctIds = Arrays.stream(ids).distinct().toArray();
+        var found = new HashMap<Long, T>();
+        for (var from = 0; from < distinctIds.length; ) {
+            int remaining = distinctIds.length - from;
+            int chunkSize = findByIdsChunkSize(remaining);
+            int count = Math.min(chunkSize, remaining);
+            var params = new ArrayList<Object>(chunkSize);
+            for (var idx = 0; idx < chunkSize; idx++) {
+                params.add(distinctIds[from + Math.min(idx, count - 1)]);
+            }
+            dbExecutor.executeSelectEach(
+                    connection,
+                    entitySQLMetaData.getSelectByIdsSql(chunkSize),
+                    params,
+                    chunkSize,
+                    resultSet -> found.put(resultSet.getLong(1), map(connection, resultSet)));
+            from += count;
+        }
+        return found;
+    }
+
+    @Override
+    public List<T> findPage(Connection connection, long afterId, int limit) {
+        String selectQuery = entitySQLMetaData.getSelectPageSql();
+        var result = new ArrayList<T>();
+        dbExecutor.executeSelectEach(
+                connection,
+                selectQuery,
+                List.of(afterId, limit),
+                limit,
+                resultSet -> result.add(map(connection, resultSet)));
+        return result;
+    }
+
+    @Override
+    public void forEach(Connection connection, Consumer<? super T> action) {
+        String selectQuery = entitySQLMetaData.getSelectAllSql();
+        dbExecutor.executeSelectEach(
+                connection,
+                selectQuery,
+                Collections.emptyList(),
+                FETCH_SIZE,
+                resultSet -> action.accept(map(connection, resultSet)));
+    }
+
     @Override
     public long insert(Connection connection, T client) {
-        String insertQuery = entitySQLMetaData.getInsertSql();
-        var fieldsWithoutId = entityClassMetaData.getFieldsWithoutId();
-        var params = new ArrayList<>(fieldsWithoutId.size() + 1);
-        long randomId = ThreadLocalRandom.current().nextInt();
-        params.add(randomId);
-        for (var field : fieldsWithoutId) {
-            addParam(client, field, params);
+        var insertRows = insertRows(connection, List.of(client));
+        dbExecutor.executeUpdate(connection, entitySQLMetaData.getInsertSql(), insertRows.binder());
+        return insertRows.ids()[0];
+    }
+
+    /**
+     * Полные пачки по INSERT_CHUNK_ROWS строк идут многострочным insert, остаток - обычным batch.
+     * Возвращаются id, выданные генератором: ключи от драйвера не запрашиваются, id уже известны.
+     */
+    @Override
+    public List<Long> insertAll(Connection connection, List<T> entities) {
+        var ids = new ArrayList<Long>(entities.size());
+        int chunkedRows = entities.size() - entities.size() % INSERT_CHUNK_ROWS;
+        if (chunkedRows > 0) {
+            var chunkBinders = new ArrayList<StatementBinder>(chunkedRows / INSERT_CHUNK_ROWS);
+            for (var from = 0; from < chunkedRows; from += INSERT_CHUNK_ROWS) {
+                var insertRows = insertRows(connection, entities.subList(from, from + INSERT_CHUNK_ROWS));
+                chunkBinders.add(insertRows.binder());
+                addIds(ids, insertRows.ids());
+            }
+            dbExecutor.executeBatchUpdate(connection, entitySQLMetaData.getInsertSql(INSERT_CHUNK_ROWS), chunkBinders);
         }
-        return dbExecutor.executeStatement(connection, insertQuery, params);
+        if (chunkedRows < entities.size()) {
+            var rowBinders = new ArrayList<StatementBinder>(entities.size() - chunkedRows);
+            for (var entity : entities.subList(chunkedRows, entities.size())) {
+                var insertRows = insertRows(connection, List.of(entity));
+                rowBinders.add(insertRows.binder());
+                addIds(ids, insertRows.ids());
+            }
+            dbExecutor.executeBatchUpdate(connection, entitySQLMetaData.getInsertSql(), rowBinders);
+        }
+        return ids;
     }
 
     @Override
     public void update(Connection connection, T client) {
-        String updateQuery = entitySQLMetaData.getUpdateSql();
-        var fieldsWithoutId = entityClassMetaData.getFieldsWithoutId();
-        var params = new ArrayList<>(fieldsWithoutId.size() + 1);
-        for (var field : fieldsWithoutId) {
-            addParam(client, field, params);
+        if (dirtyTracker == null) {
+            String updateQuery = entitySQLMetaData.getUpdateSql();
+            dbExecutor.executeUpdate(connection, updateQuery, pst -> {
+                entityMapper.bindFieldsWithoutId(pst, 1, client);
+                entityMapper.bindId(pst, entityMapper.fieldsWithoutIdCount() + 1, client);
+            });
+            return;
+        }
+        long changedFields = dirtyTracker.changedFields(connection, client);
+        if (changedFields == 0) {
+            return;
+        }
+        dbExecutor.executeUpdate(
+                connection, entitySQLMetaData.getUpdateSql(changedFields), updateBinder(client, changedFields));
+        dirtyTracker.forget(client);
+    }
+
+    /** При отслеживании изменений объекты группируются по набору измененных колонок, по batch на набор */
+    @Override
+    public void updateAll(Connection connection, List<T> entities) {
+        if (dirtyTracker == null) {
+            String updateQuery = entitySQLMetaData.getUpdateSql();
+            var binders = entities.stream()
+                    .<StatementBinder>map(entity -> pst -> {
+                        entityMapper.bindFieldsWithoutId(pst, 1, entity);
+                        entityMapper.bindId(pst, entityMapper.fieldsWithoutIdCount() + 1, entity);
+                    })
+                    .toList();
+            dbExecutor.executeBatchUpdate(connection, updateQuery, binders);
+            return;
+        }
+        var bindersByFields = new LinkedHashMap<Long, List<StatementBinder>>();
+        for (var entity : entities) {
+            long changedFields = dirtyTracker.changedFields(connection, entity);
+            if (changedFields != 0) {
+                bindersByFields
+                        .computeIfAbsent(changedFields, fields -> new ArrayList<>())
+                        .add(updateBinder(entity, changedFields));
+            }
+        }
+        bindersByFields.forEach((changedFields, binders) ->
+                dbExecutor.executeBatchUpdate(connection, entitySQLMetaData.getUpdateSql(changedFields), binders));
+        entities.forEach(dirtyTracker::forget);
+    }
+
+    private T map(Connection connection, ResultSet resultSet) throws SQLException {
+        var entity = entityMapper.map(resultSet);
+        if (dirtyTracker != null) {
+            dirtyTracker.remember(connection, entity);
         }
-        addParam(client, entityClassMetaData.getIdField(), params);
-        dbExecutor.executeStatement(connection, updateQuery, params);
+        return entity;
+    }
+
+    private StatementBinder updateBinder(T entity, long changedFields) {
+        return pst -> {
+            int idIndex = entityMapper.bindFieldsWithoutId(pst, 1, entity, changedFields);
+            entityMapper.bindId(pst, idIndex, entity);
+        };
     }
 
-    private void addParam(T client, Field field, ArrayList<Object> params) {
-        try {
-            field.setAccessible(true);
-            params.add(field.get(client));
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
+    private static int findByIdsChunkSize(int remaining) {
+        for (var chunkSize : FIND_BY_IDS_CHUNK_SIZES) {
+            if (chunkSize >= remaining) {
+                return chunkSize;
+            }
         }
+        return FIND_BY_IDS_CHUNK_SIZES[FIND_BY_IDS_CHUNK_SIZES.length - 1];
+    }
+
+    private static String sequenceName(EntityClassMetaData<?> entityClassMetaData) {
+        return "%s_%s_seq"
+                .formatted(
+                        entityClassMetaData.getName().toLowerCase(),
+                        entityClassMetaData.getIdField().getName().toLowerCase());
     }
 
-    private T getEntity(ResultSet resultSet, List<Field> fieldsWithoutId, Field idField, Constructor<T> constructor)
-            throws IllegalAccessException, InstantiationException, InvocationTargetException, SQLException {
-        var args = new Object[fieldsWithoutId.size() + 1];
-        args[0] = resultSet.getObject(idField.getName());
-        for (var idx = 0; idx < fieldsWithoutId.size(); idx++) {
-            args[idx + 1] = resultSet.getObject(fieldsWithoutId.get(idx).getName());
+    /** id выдаются сразу, при создании binder, чтобы batch не обращался к генератору во время отправки */
+    private InsertRows insertRows(Connection connection, List<T> rows) {
+        int columns = entityMapper.fieldsWithoutIdCount() + 1;
+        var ids = new long[rows.size()];
+        for (var row = 0; row < ids.length; row++) {
+            ids[row] = idGenerator.nextId(connection);
         }
-        return constructor.newInstance(args);
+        StatementBinder binder = pst -> {
+            for (var row = 0; row < rows.size(); row++) {
+                int firstIndex = row * columns + 1;
+                pst.setLong(firstIndex, ids[row]);
+                entityMapper.bindFieldsWithoutId(pst, firstIndex + 1, rows.get(row));
+            }
+        };
+        return new InsertRows(ids, binder);
     }
+
+    private static void addIds(List<Long> target, long[] ids) {
+        for (var id : ids) {
+            target.add(id);
+        }
+    }
+
+    /** Многострочный insert и id его строк в том же порядке */
+    private record InsertRows(long[] ids, StatementBinder binder) {}
 }
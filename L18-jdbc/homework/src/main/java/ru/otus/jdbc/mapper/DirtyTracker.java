@@ -0,0 +1,81 @@
+package ru.otus.jdbc.mapper;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Снимки полей без id на момент чтения из БД, по id. По ним update пишет только измененные колонки.
+ *
+ * <p>Снимок привязан к соединению, на котором объект прочитан, и сравнивается только в update на том же
+ * соединении, то есть в той же транзакции: TransactionRunnerJdbc берет соединение на одну транзакцию,
+ * а пул выдает новый объект соединения на каждое получение. Снимок из другой транзакции мог устареть,
+ * и с ним update был бы пропущен или записал бы не все колонки.
+ *
+ * <p>Снимок берется только при чтении и удаляется после update: транзакция с update может откатиться,
+ * и тогда снимок с новыми значениями заставил бы пропустить нужную запись. Хранится не больше
+ * maxSnapshots последних прочитанных объектов, для остальных update пишет все колонки.
+ */
+final class DirtyTracker<T> {
+    // маска полей - long, поэтому полей без id не больше 63
+    static final int MAX_FIELDS = Long.SIZE - 1;
+
+    private final EntityMapper<T> entityMapper;
+    private final long allFieldsMask;
+    private final Map<Object, Snapshot> snapshots;
+
+    DirtyTracker(EntityMapper<T> entityMapper, int maxSnapshots) {
+        if (entityMapper.fieldsWithoutIdCount() > MAX_FIELDS) {
+            throw new IllegalArgumentException(
+                    "dirty tracking supports up to " + MAX_FIELDS + " fields: " + entityMapper.fieldsWithoutIdCount());
+        }
+        this.entityMapper = entityMapper;
+        this.allFieldsMask = (1L << entityMapper.fieldsWithoutIdCount()) - 1;
+        this.snapshots = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Snapshot> eldest) {
+                return size() > maxSnapshots;
+            }
+        });
+    }
+
+    void remember(Connection connection, T entity) {
+        var id = entityMapper.getId(entity);
+        if (id != null) {
+            snapshots.put(id, new Snapshot(new WeakReference<>(connection), entityMapper.getFieldsWithoutId(entity)));
+        }
+    }
+
+    void forget(T entity) {
+        var id = entityMapper.getId(entity);
+        if (id != null) {
+            snapshots.remove(id);
+        }
+    }
+
+    /**
+     * Маска полей, отличающихся от снимка (бит i - i-е поле без id); все поля, если снимка нет
+     * или он сделан на другом соединении
+     */
+    long changedFields(Connection connection, T entity) {
+        var id = entityMapper.getId(entity);
+        var snapshot = id == null ? null : snapshots.get(id);
+        if (snapshot == null || snapshot.connection().get() != connection) {
+            return allFieldsMask;
+        }
+        var values = entityMapper.getFieldsWithoutId(entity);
+        long changed = 0;
+        for (var idx = 0; idx < values.length; idx++) {
+            if (!Objects.equals(values[idx], snapshot.values()[idx])) {
+                changed |= 1L << idx;
+            }
+        }
+        return changed;
+    }
+
+    // слабая ссылка: снимки не удерживают в памяти закрытые соединения
+    private record Snapshot(WeakReference<Connection> connection, Object[] values) {}
+}
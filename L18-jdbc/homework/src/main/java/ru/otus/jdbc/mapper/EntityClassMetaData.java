@@ -17,4 +17,7 @@ public interface EntityClassMetaData<T> {
     List<Field> getAllFields();
 
     List<Field> getFieldsWithoutId();
+
+    // Собранный один раз маппер строк и параметров без reflection на каждую строку
+    EntityMapper<T> getMapper();
 }
@@ -10,6 +10,7 @@ public class EntityClassMetaDataImpl<T> implements EntityClassMetaData<T> {
     private final Class<T> clazz;
     private Field idField = null;
     private List<Field> fieldsWithoutId = null;
+    private EntityMapper<T> mapper = null;
 
     public EntityClassMetaDataImpl(Class<T> clazz) {
         this.clazz = clazz;
@@ -59,4 +60,13 @@ public class EntityClassMetaDataImpl<T> implements EntityClassMetaData<T> {
                 .toList();
         return fieldsWithoutId;
     }
+
+    @Override
+    public EntityMapper<T> getMapper() {
+        if (mapper != null) {
+            return mapper;
+        }
+        mapper = new EntityMapper<>(this);
+        return mapper;
+    }
 }
@@ -0,0 +1,267 @@
+package ru.otus.jdbc.mapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import ru.otus.core.repository.DataTemplateException;
+
+/**
+ * Маппер строк и параметров для одного класса сущности, собранный из MethodHandle один раз.
+ *
+ * <p>Колонки читаются по индексу типизированными getXxx, а параметры пишутся типизированными setXxx,
+ * поэтому на каждую строку нет ни поиска колонки по имени, ни Field.get/Constructor.newInstance.
+ * Порядок колонок: id, затем поля без id - так их перечисляет EntitySQLMetaDataImpl.
+ */
+public final class EntityMapper<T> {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType ROW_READER_TYPE = MethodType.methodType(Object.class, ResultSet.class);
+    private static final MethodType COLUMN_BINDER_TYPE =
+            MethodType.methodType(void.class, PreparedStatement.class, int.class, Object.class);
+    private static final MethodType FIELD_GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final MethodHandle rowReader;
+    private final MethodHandle idBinder;
+    private final MethodHandle[] fieldBinders;
+    private final MethodHandle idGetter;
+    private final MethodHandle[] fieldGetters;
+
+    EntityMapper(EntityClassMetaData<T> entityClassMetaData) {
+        try {
+            var entityClass = entityClassMetaData.getConstructor().getDeclaringClass();
+            var lookup = MethodHandles.privateLookupIn(entityClass, LOOKUP);
+            var idField = entityClassMetaData.getIdField();
+            var fieldsWithoutId = entityClassMetaData.getFieldsWithoutId();
+            this.rowReader = buildRowReader(lookup, entityClassMetaData, idField, fieldsWithoutId);
+            this.idBinder = buildColumnBinder(lookup, idField);
+            this.fieldBinders = new MethodHandle[fieldsWithoutId.size()];
+            this.idGetter = lookup.unreflectGetter(idField).asType(FIELD_GETTER_TYPE);
+            this.fieldGetters = new MethodHandle[fieldsWithoutId.size()];
+            for (var idx = 0; idx < fieldBinders.length; idx++) {
+                fieldBinders[idx] = buildColumnBinder(lookup, fieldsWithoutId.get(idx));
+                fieldGetters[idx] = lookup.unreflectGetter(fieldsWithoutId.get(idx)).asType(FIELD_GETTER_TYPE);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new DataTemplateException(e);
+        }
+    }
+
+    /** Создает объект из текущей строки resultSet */
+    @SuppressWarnings("unchecked")
+    public T map(ResultSet resultSet) throws SQLException {
+        try {
+            return (T) rowReader.invokeExact(resultSet);
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new DataTemplateException(new IllegalStateException(e));
+        }
+    }
+
+    public void bindId(PreparedStatement pst, int parameterIndex, T entity) throws SQLException {
+        bind(idBinder, pst, parameterIndex, entity);
+    }
+
+    /** Пишет поля без id в параметры, начиная с firstParameterIndex */
+    public void bindFieldsWithoutId(PreparedStatement pst, int firstParameterIndex, T entity) throws SQLException {
+        for (var idx = 0; idx < fieldBinders.length; idx++) {
+            bind(fieldBinders[idx], pst, firstParameterIndex + idx, entity);
+        }
+    }
+
+    /**
+     * Пишет только поля без id, отмеченные в fieldsMask (бит i - i-е поле), начиная с firstParameterIndex.
+     *
+     * @return индекс следующего параметра
+     */
+    public int bindFieldsWithoutId(PreparedStatement pst, int firstParameterIndex, T entity, long fieldsMask)
+            throws SQLException {
+        int parameterIndex = firstParameterIndex;
+        for (var idx = 0; idx < fieldBinders.length; idx++) {
+            if ((fieldsMask & (1L << idx)) != 0) {
+                bind(fieldBinders[idx], pst, parameterIndex++, entity);
+            }
+        }
+        return parameterIndex;
+    }
+
+    public int fieldsWithoutIdCount() {
+        return fieldBinders.length;
+    }
+
+    public Object getId(T entity) {
+        return get(idGetter, entity);
+    }
+
+    /** Значения полей без id в порядке колонок */
+    public Object[] getFieldsWithoutId(T entity) {
+        var values = new Object[fieldGetters.length];
+        for (var idx = 0; idx < values.length; idx++) {
+            values[idx] = get(fieldGetters[idx], entity);
+        }
+        return values;
+    }
+
+    private static Object get(MethodHandle getter, Object entity) {
+        try {
+            return getter.invokeExact(entity);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new DataTemplateException(new IllegalStateException(e));
+        }
+    }
+
+    private static void bind(MethodHandle binder, PreparedStatement pst, int parameterIndex, Object entity)
+            throws SQLException {
+        try {
+            binder.invokeExact(pst, parameterIndex, entity);
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new DataTemplateException(new IllegalStateException(e));
+        }
+    }
+
+    /**
+     * (ResultSet) -> T: конструктор со всеми полями, каждый аргумент которого читается своим
+     * типизированным getter-ом по индексу колонки.
+     */
+    private static MethodHandle buildRowReader(
+            MethodHandles.Lookup lookup,
+            EntityClassMetaData<?> entityClassMetaData,
+            Field idField,
+            List<Field> fieldsWithoutId)
+            throws ReflectiveOperationException {
+        var constructor = lookup.unreflectConstructor(entityClassMetaData.getConstructor());
+        var allFields = entityClassMetaData.getAllFields();
+        var columnReaders = new MethodHandle[allFields.size()];
+        for (var idx = 0; idx < allFields.size(); idx++) {
+            var field = allFields.get(idx);
+            int columnIndex = field.equals(idField) ? 1 : 2 + fieldsWithoutId.indexOf(field);
+            columnReaders[idx] = columnReader(field.getType(), columnIndex);
+        }
+        var reader = MethodHandles.filterArguments(constructor, 0, columnReaders);
+        // все аргументы (ResultSet, ResultSet, ...) сводим к одному ResultSet
+        reader = MethodHandles.permuteArguments(
+                reader, MethodType.methodType(reader.type().returnType(), ResultSet.class), new int[allFields.size()]);
+        return reader.asType(ROW_READER_TYPE);
+    }
+
+    /** (ResultSet) -> тип поля, колонка columnIndex */
+    private static MethodHandle columnReader(Class<?> type, int columnIndex) throws ReflectiveOperationException {
+        MethodHandle getter;
+        if (type == long.class) {
+            getter = LOOKUP.findVirtual(ResultSet.class, "getLong", MethodType.methodType(long.class, int.class));
+        } else if (type == int.class) {
+            getter = LOOKUP.findVirtual(ResultSet.class, "getInt", MethodType.methodType(int.class, int.class));
+        } else if (type == double.class) {
+            getter = LOOKUP.findVirtual(ResultSet.class, "getDouble", MethodType.methodType(double.class, int.class));
+        } else if (type == boolean.class) {
+            getter = LOOKUP.findVirtual(
+                    ResultSet.class, "getBoolean", MethodType.methodType(boolean.class, int.class));
+        } else if (type == String.class) {
+            getter = LOOKUP.findVirtual(ResultSet.class, "getString", MethodType.methodType(String.class, int.class));
+        } else if (type == Long.class) {
+            getter = LOOKUP.findStatic(
+                    EntityMapper.class,
+                    "getNullableLong",
+                    MethodType.methodType(Long.class, ResultSet.class, int.class));
+        } else if (type == Integer.class) {
+            getter = LOOKUP.findStatic(
+                    EntityMapper.class,
+                    "getNullableInt",
+                    MethodType.methodType(Integer.class, ResultSet.class, int.class));
+        } else {
+            getter = MethodHandles.insertArguments(
+                            LOOKUP.findVirtual(
+                                    ResultSet.class,
+                                    "getObject",
+                                    MethodType.methodType(Object.class, int.class, Class.class)),
+                            2,
+                            type)
+                    .asType(MethodType.methodType(type, ResultSet.class, int.class));
+        }
+        return MethodHandles.insertArguments(getter, 1, columnIndex);
+    }
+
+    /** (PreparedStatement, int, Object entity) -> void: значение поля сразу передается в типизированный setter */
+    private static MethodHandle buildColumnBinder(MethodHandles.Lookup lookup, Field field)
+            throws ReflectiveOperationException {
+        var fieldGetter = lookup.unreflectGetter(field);
+        var setter = parameterSetter(field.getType());
+        return MethodHandles.filterArguments(setter, 2, fieldGetter).asType(COLUMN_BINDER_TYPE);
+    }
+
+    /** (PreparedStatement, int, тип поля) -> void */
+    private static MethodHandle parameterSetter(Class<?> type) throws ReflectiveOperationException {
+        if (type == long.class) {
+            return LOOKUP.findVirtual(
+                    PreparedStatement.class, "setLong", MethodType.methodType(void.class, int.class, long.class));
+        } else if (type == int.class) {
+            return LOOKUP.findVirtual(
+                    PreparedStatement.class, "setInt", MethodType.methodType(void.class, int.class, int.class));
+        } else if (type == double.class) {
+            return LOOKUP.findVirtual(
+                    PreparedStatement.class, "setDouble", MethodType.methodType(void.class, int.class, double.class));
+        } else if (type == boolean.class) {
+            return LOOKUP.findVirtual(
+                    PreparedStatement.class,
+                    "setBoolean",
+                    MethodType.methodType(void.class, int.class, boolean.class));
+        } else if (type == String.class) {
+            return LOOKUP.findVirtual(
+                    PreparedStatement.class, "setString", MethodType.methodType(void.class, int.class, String.class));
+        } else if (type == Long.class) {
+            return LOOKUP.findStatic(
+                    EntityMapper.class,
+                    "setNullableLong",
+                    MethodType.methodType(void.class, PreparedStatement.class, int.class, Long.class));
+        } else if (type == Integer.class) {
+            return LOOKUP.findStatic(
+                    EntityMapper.class,
+                    "setNullableInt",
+                    MethodType.methodType(void.class, PreparedStatement.class, int.class, Integer.class));
+        }
+        return LOOKUP.findVirtual(
+                        PreparedStatement.class,
+                        "setObject",
+                        MethodType.methodType(void.class, int.class, Object.class))
+                .asType(MethodType.methodType(void.class, PreparedStatement.class, int.class, type));
+    }
+
+    @SuppressWarnings("unused")
+    private static Long getNullableLong(ResultSet resultSet, int columnIndex) throws SQLException {
+        long value = resultSet.getLong(columnIndex);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    @SuppressWarnings("unused")
+    private static Integer getNullableInt(ResultSet resultSet, int columnIndex) throws SQLException {
+        int value = resultSet.getInt(columnIndex);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    @SuppressWarnings("unused")
+    private static void setNullableLong(PreparedStatement pst, int parameterIndex, Long value) throws SQLException {
+        if (value == null) {
+            pst.setNull(parameterIndex, Types.BIGINT);
+        } else {
+            pst.setLong(parameterIndex, value);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static void setNullableInt(PreparedStatement pst, int parameterIndex, Integer value) throws SQLException {
+        if (value == null) {
+            pst.setNull(parameterIndex, Types.INTEGER);
+        } else {
+            pst.setInt(parameterIndex, value);
+        }
+    }
+}
@@ -6,7 +6,19 @@ public interface EntitySQLMetaData {
 
     String getSelectByIdSql();
 
+    // выборка по нескольким id: id in (?,...), ровно count параметров
+    String getSelectByIdsSql(int count);
+
+    // страница по ключу: id > ? order by id limit ?
+    String getSelectPageSql();
+
     String getInsertSql();
 
+    // insert сразу нескольких строк: values(...),(...)
+    String getInsertSql(int rows);
+
     String getUpdateSql();
+
+    // update только полей без id, отмеченных в fieldsMask: бит i - i-е поле
+    String getUpdateSql(long fieldsMask);
 }
@@ -3,15 +3,25 @@ package ru.otus.jdbc.mapper;
 import static java.util.stream.Collectors.joining;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 public class EntitySQLMetaDataImpl implements EntitySQLMetaData {
+    // больше разных наборов колонок для update не кэшируем, остальные строятся при каждом вызове
+    private static final int MAX_PARTIAL_UPDATE_SQL = 256;
 
     private final EntityClassMetaData<?> entityClassMetaData;
     private String selectAllSql = null;
     private String selectByIdSql = null;
+    private String selectPageSql = null;
     private String insertSql = null;
     private String updateSql = null;
+    private final Map<Integer, String> multiRowInsertSql = new ConcurrentHashMap<>();
+    private final Map<Integer, String> selectByIdsSql = new ConcurrentHashMap<>();
+    private final Map<Long, String> partialUpdateSql = new ConcurrentHashMap<>();
 
     public EntitySQLMetaDataImpl(EntityClassMetaData<?> entityClassMetaData) {
         this.entityClassMetaData = entityClassMetaData;
@@ -23,7 +33,7 @@ public class EntitySQLMetaDataImpl implements EntitySQLMetaData {
             return selectAllSql;
         }
         String tableName = entityClassMetaData.getName().toLowerCase();
-        selectAllSql = "select * from %s;".formatted(tableName);
+        selectAllSql = "select %s from %s;".formatted(getColumns(), tableName);
         return selectAllSql;
     }
 
@@ -34,24 +44,51 @@ public class EntitySQLMetaDataImpl implements EntitySQLMetaData {
         }
         String tableName = entityClassMetaData.getName().toLowerCase();
         String idFieldName = entityClassMetaData.getIdField().getName();
-        selectByIdSql = "select * from %s where %s = ?;".formatted(tableName, idFieldName);
+        selectByIdSql = "select %s from %s where %s = ?;".formatted(getColumns(), tableName, idFieldName);
         return selectByIdSql;
     }
 
+    @Override
+    public String getSelectByIdsSql(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        return selectByIdsSql.computeIfAbsent(count, this::buildSelectByIdsSql);
+    }
+
+    /** Условие по первичному ключу вместо offset: глубокая страница стоит столько же, сколько первая */
+    @Override
+    public String getSelectPageSql() {
+        if (selectPageSql != null) {
+            return selectPageSql;
+        }
+        String tableName = entityClassMetaData.getName().toLowerCase();
+        String idFieldName = entityClassMetaData.getIdField().getName();
+        selectPageSql = "select %s from %s where %s > ? order by %s limit ?;"
+                .formatted(getColumns(), tableName, idFieldName, idFieldName);
+        return selectPageSql;
+    }
+
     @Override
     public String getInsertSql() {
         if (insertSql != null) {
             return insertSql;
         }
         String tableName = entityClassMetaData.getName().toLowerCase();
-        String fieldNames =
-                entityClassMetaData.getAllFields().stream().map(Field::getName).collect(joining(","));
         String placeHolders = String.join(
                 ",", Collections.nCopies(entityClassMetaData.getAllFields().size(), "?"));
-        insertSql = "insert into %s(%s) values(%s)".formatted(tableName, fieldNames, placeHolders);
+        insertSql = "insert into %s(%s) values(%s)".formatted(tableName, getColumns(), placeHolders);
         return insertSql;
     }
 
+    @Override
+    public String getInsertSql(int rows) {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("rows must be positive: " + rows);
+        }
+        return multiRowInsertSql.computeIfAbsent(rows, this::buildMultiRowInsertSql);
+    }
+
     @Override
     public String getUpdateSql() {
         if (updateSql != null) {
@@ -65,4 +102,56 @@ public class EntitySQLMetaDataImpl implements EntitySQLMetaData {
         updateSql = "update %s set %s where %s = ?".formatted(tableName, fieldNamesWithoutId, idFieldName);
         return updateSql;
     }
+
+    @Override
+    public String getUpdateSql(long fieldsMask) {
+        var fieldsWithoutId = entityClassMetaData.getFieldsWithoutId();
+        if (fieldsMask == 0 || (fieldsWithoutId.size() < Long.SIZE && fieldsMask >>> fieldsWithoutId.size() != 0)) {
+            throw new IllegalArgumentException("invalid fieldsMask: " + Long.toBinaryString(fieldsMask));
+        }
+        var sql = partialUpdateSql.get(fieldsMask);
+        if (sql != null) {
+            return sql;
+        }
+        if (partialUpdateSql.size() >= MAX_PARTIAL_UPDATE_SQL) {
+            return buildPartialUpdateSql(fieldsMask);
+        }
+        return partialUpdateSql.computeIfAbsent(fieldsMask, this::buildPartialUpdateSql);
+    }
+
+    private String buildPartialUpdateSql(long fieldsMask) {
+        String tableName = entityClassMetaData.getName().toLowerCase();
+        String idFieldName = entityClassMetaData.getIdField().getName();
+        var fieldsWithoutId = entityClassMetaData.getFieldsWithoutId();
+        var assignments = new ArrayList<String>();
+        for (var idx = 0; idx < fieldsWithoutId.size(); idx++) {
+            if ((fieldsMask & (1L << idx)) != 0) {
+                assignments.add("%s = ?".formatted(fieldsWithoutId.get(idx).getName()));
+            }
+        }
+        return "update %s set %s where %s = ?".formatted(tableName, String.join(",", assignments), idFieldName);
+    }
+
+    private String buildMultiRowInsertSql(int rows) {
+        String tableName = entityClassMetaData.getName().toLowerCase();
+        String placeHolders = String.join(",", Collections.nCopies(entityClassMetaData.getAllFields().size(), "?"));
+        String values = String.join(",", Collections.nCopies(rows, "(" + placeHolders + ")"));
+        return "insert into %s(%s) values%s".formatted(tableName, getColumns(), values);
+    }
+
+    private String buildSelectByIdsSql(int count) {
+        String tableName = entityClassMetaData.getName().toLowerCase();
+        String idFieldName = entityClassMetaData.getIdField().getName();
+        String placeHolders = String.join(",", Collections.nCopies(count, "?"));
+        return "select %s from %s where %s in (%s);".formatted(getColumns(), tableName, idFieldName, placeHolders);
+    }
+
+    // колонки всегда в порядке id, поля без id: по этому порядку EntityMapper читает и пишет по индексу
+    private String getColumns() {
+        return Stream.concat(
+                        Stream.of(entityClassMetaData.getIdField()),
+                        entityClassMetaData.getFieldsWithoutId().stream())
+                .map(Field::getName)
+                .collect(joining(","));
+    }
 }
@@ -0,0 +1,8 @@
+package ru.otus.jdbc.mapper;
+
+import java.sql.Connection;
+
+/** Выдает id для новых строк; connection - текущее соединение, если генератору нужна БД */
+public interface IdGenerator {
+    long nextId(Connection connection);
+}
@@ -0,0 +1,73 @@
+package ru.otus.jdbc.mapper;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import ru.otus.core.repository.DataTemplateException;
+import ru.otus.core.repository.executor.DbExecutor;
+
+/**
+ * Пул id из последовательности БД: один nextval резервирует блок [value, value + blockSize).
+ *
+ * <p>Внутри блока id выдаются из памяти через AtomicLong, без блокировок и обращений к БД,
+ * блокировка берется только при замене исчерпанного блока. У последовательности должен быть
+ * increment by blockSize, тогда блоки разных экземпляров и процессов не пересекаются.
+ */
+public class PooledSequenceIdGenerator implements IdGenerator {
+    private final DbExecutor dbExecutor;
+    private final String nextValueSql;
+    private final int blockSize;
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private volatile Block block = new Block(new AtomicLong(), 0);
+
+    public PooledSequenceIdGenerator(DbExecutor dbExecutor, String sequenceName, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        this.dbExecutor = dbExecutor;
+        this.nextValueSql = "select nextval('%s')".formatted(sequenceName);
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public long nextId(Connection connection) {
+        while (true) {
+            var current = block;
+            long id = current.next().getAndIncrement();
+            if (id < current.limit()) {
+                return id;
+            }
+            refill(connection, current);
+        }
+    }
+
+    private void refill(Connection connection, Block exhausted) {
+        refillLock.lock();
+        try {
+            // пока ждали блокировку, блок мог заменить другой поток
+            if (block == exhausted) {
+                long first = nextSequenceValue(connection);
+                block = new Block(new AtomicLong(first), first + blockSize);
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private long nextSequenceValue(Connection connection) {
+        return dbExecutor
+                .executeSelect(connection, nextValueSql, List.of(), resultSet -> {
+                    try {
+                        resultSet.next();
+                        return resultSet.getLong(1);
+                    } catch (SQLException e) {
+                        throw new DataTemplateException(e);
+                    }
+                })
+                .orElseThrow(() -> new DataTemplateException(new IllegalStateException("nextval returned no rows")));
+    }
+
+    private record Block(AtomicLong next, long limit) {}
+}
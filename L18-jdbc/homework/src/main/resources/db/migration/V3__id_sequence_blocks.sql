@@ -0,0 +1,7 @@
+-- id выдаются блоками по 50 (PooledSequenceIdGenerator): один nextval резервирует весь блок
+alter sequence client_id_seq increment by 50;
+alter sequence manager_no_seq increment by 50;
+
+-- блок [nextval, nextval + 50) должен начинаться за уже существующими строками
+select setval('client_id_seq', greatest((select max(id) from client), 1));
+select setval('manager_no_seq', greatest((select max(no) from manager), 1));
@@ -0,0 +1,169 @@
+package ru.otus.jdbc.mapper;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.otus.core.repository.DataTemplate;
+import ru.otus.core.repository.executor.DbExecutorImpl;
+import ru.otus.crm.model.Client;
+import ru.otus.crm.repository.ClientDataTemplateJdbc;
+
+/**
+ * DataTemplateJdbc против написанного вручную ClientDataTemplateJdbc на встроенной H2 в режиме PostgreSQL,
+ * без контейнера с БД. Схема создается теми же миграциями Flyway, что и в HomeWorkJdbs.
+ *
+ * <p>Все операции идут через одно соединение, записи сразу коммитятся: замеряется работа шаблона
+ * (SQL, привязка параметров, разбор строк), а не пул соединений и транзакции.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class DataTemplateBenchmark {
+    private static final String URL_TEMPLATE =
+            "jdbc:h2:mem:%s;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final int LOAD_CHUNK_ROWS = 10_000;
+    private static final int BATCH_ROWS = 1_000;
+    // начало identity-колонки: строки, вставленные по умолчанию, не пересекаются с id из последовательности
+    private static final long IDENTITY_START = 1_000_000_000L;
+
+    @Param({"DataTemplateJdbc", "ClientDataTemplateJdbc"})
+    public String template;
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private Connection connection;
+    private DataTemplate<Client> dataTemplate;
+    private List<Client> batch;
+
+    public static void main(String[] args) throws RunnerException {
+        var opt = new OptionsBuilder()
+                .include(DataTemplateBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        var url = URL_TEMPLATE.formatted("bench" + System.nanoTime());
+        // V3 меняет шаг bigserial-последовательностей PostgreSQL, у H2 их нет: id берутся из своей
+        Flyway.configure()
+                .dataSource(url, USER, PASSWORD)
+                .locations("classpath:/db/migration")
+                .target("2")
+                .load()
+                .migrate();
+        connection = DriverManager.getConnection(url, USER, PASSWORD);
+        connection.setAutoCommit(false);
+        try (var statement = connection.createStatement()) {
+            statement.execute("create sequence bench_client_id_seq increment by " + ID_BLOCK_SIZE);
+            statement.execute("alter table client alter column id restart with " + IDENTITY_START);
+        }
+        connection.commit();
+
+        var dbExecutor = new DbExecutorImpl();
+        EntityClassMetaData<Client> entityClassMetaData = new EntityClassMetaDataImpl<>(Client.class);
+        var dataTemplateJdbc = new DataTemplateJdbc<>(
+                dbExecutor,
+                new EntitySQLMetaDataImpl(entityClassMetaData),
+                entityClassMetaData,
+                new PooledSequenceIdGenerator(dbExecutor, "bench_client_id_seq", ID_BLOCK_SIZE));
+        // таблица заполняется одинаково для обоих шаблонов, id строк - 1..rows
+        for (var from = 0; from < rows; from += LOAD_CHUNK_ROWS) {
+            dataTemplateJdbc.insertAll(connection, clients("load", Math.min(LOAD_CHUNK_ROWS, rows - from)));
+            connection.commit();
+        }
+        dataTemplate = switch (template) {
+            case "DataTemplateJdbc" -> dataTemplateJdbc;
+            case "ClientDataTemplateJdbc" -> new ClientDataTemplateJdbc(dbExecutor);
+            default -> throw new IllegalArgumentException("unknown template: " + template);
+        };
+        batch = clients("batch", BATCH_ROWS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public Object findById() {
+        return dataTemplate.findById(connection, randomId());
+    }
+
+    @Benchmark
+    public int findAll() {
+        return dataTemplate.findAll(connection).size();
+    }
+
+    @Benchmark
+    public void forEach(Blackhole blackhole) {
+        dataTemplate.forEach(connection, blackhole::consume);
+    }
+
+    @Benchmark
+    public long insert() throws SQLException {
+        long id = dataTemplate.insert(connection, new Client("single"));
+        connection.commit();
+        return id;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_ROWS)
+    public List<Long> insertAll() throws SQLException {
+        var ids = dataTemplate.insertAll(connection, batch);
+        connection.commit();
+        return ids;
+    }
+
+    @Benchmark
+    public void update() throws SQLException {
+        long id = randomId();
+        dataTemplate.update(connection, new Client(id, "updated" + id));
+        connection.commit();
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1L);
+    }
+
+    private static List<Client> clients(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(idx -> new Client(prefix + idx))
+                .toList();
+    }
+}
@@ -0,0 +1,164 @@
+package ru.otus.jdbc.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.core.repository.executor.DbExecutorImpl;
+import ru.otus.core.repository.executor.StatementBinder;
+import ru.otus.crm.model.Manager;
+
+@DisplayName("Отслеживание изменений в DataTemplateJdbc ")
+class DataTemplateJdbcDirtyTrackingTest {
+    private static final String URL_TEMPLATE =
+            "jdbc:h2:mem:%s;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final long LABEL = 0b01;
+    private static final long PARAM1 = 0b10;
+
+    private final RecordingDbExecutor dbExecutor = new RecordingDbExecutor();
+    private final EntityClassMetaData<Manager> entityClassMetaData = new EntityClassMetaDataImpl<>(Manager.class);
+    private String url;
+    private Connection connection;
+    private DataTemplateJdbc<Manager> dataTemplate;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        url = URL_TEMPLATE.formatted("dirty" + System.nanoTime());
+        connection = DriverManager.getConnection(url, "sa", "");
+        connection.setAutoCommit(false);
+        try (var statement = connection.createStatement()) {
+            statement.execute("create table manager (no bigint primary key, label varchar(50), param1 varchar(50))");
+        }
+        var ids = new AtomicLong();
+        dataTemplate = new DataTemplateJdbc<>(
+                dbExecutor,
+                new EntitySQLMetaDataImpl(entityClassMetaData),
+                entityClassMetaData,
+                conn -> ids.incrementAndGet(),
+                true);
+        dataTemplate.insertAll(
+                connection,
+                List.of(new Manager("label1"), new Manager("label2"), new Manager("label3")));
+        connection.commit();
+        dbExecutor.updates.clear();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        connection.close();
+    }
+
+    @Test
+    @DisplayName(" отмечает в маске только измененные поля")
+    void shouldMarkOnlyChangedFields() {
+        // given
+        var tracker = new DirtyTracker<>(entityClassMetaData.getMapper(), 10);
+        var manager = new Manager(1L, "label", "param");
+        tracker.remember(connection, manager);
+
+        // when
+        var unchanged = tracker.changedFields(connection, manager);
+        manager.setParam1("changed");
+        var paramChanged = tracker.changedFields(connection, manager);
+        manager.setLabel(null);
+        var bothChanged = tracker.changedFields(connection, manager);
+
+        // then
+        assertThat(unchanged).isZero();
+        assertThat(paramChanged).isEqualTo(PARAM1);
+        assertThat(bothChanged).isEqualTo(LABEL | PARAM1);
+    }
+
+    @Test
+    @DisplayName(" не выполняет update объекта без изменений и пишет только измененные колонки")
+    void shouldSkipNoOpUpdate() throws SQLException {
+        // given
+        var manager = dataTemplate.findById(connection, 1L).orElseThrow();
+
+        // when
+        dataTemplate.update(connection, manager);
+
+        // then
+        assertThat(dbExecutor.updates).isEmpty();
+
+        // when
+        manager.setParam1("param");
+        dataTemplate.update(connection, manager);
+        connection.commit();
+
+        // then
+        assertThat(dbExecutor.updates).containsExactly("update manager set param1 = ? where no = ? x1");
+        assertThat(dataTemplate.findById(connection, 1L))
+                .get()
+                .usingRecursiveComparison()
+                .isEqualTo(new Manager(1L, "label1", "param"));
+    }
+
+    @Test
+    @DisplayName(" в updateAll группирует объекты по набору измененных колонок")
+    void shouldGroupUpdatesByChangedFields() {
+        // given
+        var managers = new ArrayList<>(dataTemplate.findAll(connection));
+        managers.sort(Comparator.comparing(Manager::getNo));
+        managers.get(0).setLabel("changed1");
+        managers.get(1).setParam1("param2");
+        managers.get(2).setLabel("changed3");
+
+        // when
+        dataTemplate.updateAll(connection, managers);
+
+        // then
+        assertThat(dbExecutor.updates)
+                .containsExactly(
+                        "update manager set label = ? where no = ? x2",
+                        "update manager set param1 = ? where no = ? x1");
+    }
+
+    @Test
+    @DisplayName(" не сравнивает со снимком, сделанным на другом соединении")
+    void shouldIgnoreSnapshotFromAnotherConnection() throws SQLException {
+        // given
+        var manager = dataTemplate.findById(connection, 1L).orElseThrow();
+
+        // when
+        try (var otherConnection = DriverManager.getConnection(url, "sa", "")) {
+            dataTemplate.update(otherConnection, manager);
+        }
+
+        // then
+        assertThat(dbExecutor.updates).containsExactly("update manager set label = ?,param1 = ? where no = ? x1");
+    }
+
+    /** Запоминает выполненные update в виде "sql xN", где N - число строк в пачке */
+    private static class RecordingDbExecutor extends DbExecutorImpl {
+        private final List<String> updates = new ArrayList<>();
+
+        @Override
+        public long executeUpdate(Connection connection, String sql, StatementBinder binder) {
+            if (sql.startsWith("update")) {
+                updates.add(sql + " x1");
+            }
+            return super.executeUpdate(connection, sql, binder);
+        }
+
+        @Override
+        public void executeBatchUpdate(Connection connection, String sql, List<StatementBinder> binders) {
+            if (sql.startsWith("update")) {
+                updates.add(sql + " x" + binders.size());
+            }
+            super.executeBatchUpdate(connection, sql, binders);
+        }
+    }
+}
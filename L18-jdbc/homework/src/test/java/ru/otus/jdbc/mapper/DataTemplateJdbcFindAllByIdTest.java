@@ -0,0 +1,104 @@
+package ru.otus.jdbc.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.core.repository.executor.DbExecutorImpl;
+import ru.otus.core.repository.executor.RowCallback;
+import ru.otus.crm.model.Manager;
+
+@DisplayName("Поиск по списку id в DataTemplateJdbc ")
+class DataTemplateJdbcFindAllByIdTest {
+    private static final String URL_TEMPLATE =
+            "jdbc:h2:mem:%s;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final int MANAGERS = 100;
+
+    private final RecordingDbExecutor dbExecutor = new RecordingDbExecutor();
+    private Connection connection;
+    private DataTemplateJdbc<Manager> dataTemplate;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL_TEMPLATE.formatted("ids" + System.nanoTime()), "sa", "");
+        connection.setAutoCommit(false);
+        try (var statement = connection.createStatement()) {
+            statement.execute("create table manager (no bigint primary key, label varchar(50), param1 varchar(50))");
+        }
+        var entityClassMetaData = new EntityClassMetaDataImpl<>(Manager.class);
+        var ids = new AtomicLong();
+        dataTemplate = new DataTemplateJdbc<>(
+                dbExecutor,
+                new EntitySQLMetaDataImpl(entityClassMetaData),
+                entityClassMetaData,
+                conn -> ids.incrementAndGet());
+        var managers = new ArrayList<Manager>();
+        for (var idx = 1; idx <= MANAGERS; idx++) {
+            managers.add(new Manager("label" + idx));
+        }
+        dataTemplate.insertAll(connection, managers);
+        connection.commit();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        connection.close();
+    }
+
+    @Test
+    @DisplayName(" читает id пачками фиксированных размеров, пропуская повторы и отсутствующие id")
+    void shouldFindByIdsInChunks() {
+        // given
+        var requested = LongStream.concat(LongStream.rangeClosed(1, 70), LongStream.of(1, 2, 1_000, 1_001))
+                .toArray();
+        var expectedIds = LongStream.rangeClosed(1, 70).boxed().toList();
+
+        // when
+        var found = dataTemplate.findAllById(connection, requested);
+
+        // then
+        // 72 разных id: полная пачка из 64 и остаток из 8, дополненный до 16 повтором последнего id
+        assertThat(dbExecutor.selectParameterCounts).containsExactly(64, 16);
+        assertThat(found).hasSize(70);
+        assertThat(found.keySet()).containsExactlyInAnyOrderElementsOf(expectedIds);
+        assertThat(found.get(70L).getLabel()).isEqualTo("label70");
+    }
+
+    @Test
+    @DisplayName(" для нескольких id делает один запрос, а для пустого списка не делает ни одного")
+    void shouldUseSingleQueryForFewIds() {
+        // when
+        var found = dataTemplate.findAllById(connection, new long[] {3, 5, 7});
+        var notFound = dataTemplate.findAllById(connection, new long[0]);
+
+        // then
+        assertThat(dbExecutor.selectParameterCounts).containsExactly(4);
+        assertThat(found.keySet()).containsExactlyInAnyOrder(3L, 5L, 7L);
+        assertThat(found.get(5L).getLabel()).isEqualTo("label5");
+        assertThat(notFound).isEmpty();
+    }
+
+    /** Запоминает число параметров в каждом запросе executeSelectEach */
+    private static class RecordingDbExecutor extends DbExecutorImpl {
+        private final List<Integer> selectParameterCounts = new ArrayList<>();
+
+        @Override
+        public void executeSelectEach(
+                Connection connection, String sql, List<Object> params, int fetchSize, RowCallback rowCallback) {
+            selectParameterCounts.add(params.size());
+            super.executeSelectEach(connection, sql, params, fetchSize, rowCallback);
+        }
+    }
+}
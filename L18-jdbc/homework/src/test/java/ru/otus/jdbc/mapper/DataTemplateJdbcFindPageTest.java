@@ -0,0 +1,117 @@
+package ru.otus.jdbc.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.core.repository.executor.DbExecutorImpl;
+import ru.otus.core.repository.executor.RowCallback;
+import ru.otus.crm.model.Manager;
+
+@DisplayName("Постраничное чтение в DataTemplateJdbc ")
+class DataTemplateJdbcFindPageTest {
+    private static final String URL_TEMPLATE =
+            "jdbc:h2:mem:%s;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final int MANAGERS = 10;
+    private static final int PAGE_SIZE = 4;
+
+    private final RecordingDbExecutor dbExecutor = new RecordingDbExecutor();
+    private Connection connection;
+    private DataTemplateJdbc<Manager> dataTemplate;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL_TEMPLATE.formatted("page" + System.nanoTime()), "sa", "");
+        connection.setAutoCommit(false);
+        try (var statement = connection.createStatement()) {
+            statement.execute("create table manager (no bigint primary key, label varchar(50), param1 varchar(50))");
+        }
+        var entityClassMetaData = new EntityClassMetaDataImpl<>(Manager.class);
+        var ids = new AtomicLong();
+        dataTemplate = new DataTemplateJdbc<>(
+                dbExecutor,
+                new EntitySQLMetaDataImpl(entityClassMetaData),
+                entityClassMetaData,
+                conn -> ids.incrementAndGet());
+        var managers = new ArrayList<Manager>();
+        for (var idx = 1; idx <= MANAGERS; idx++) {
+            managers.add(new Manager("label" + idx));
+        }
+        dataTemplate.insertAll(connection, managers);
+        connection.commit();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        connection.close();
+    }
+
+    @Test
+    @DisplayName(" строит keyset-запрос по колонке @Id без offset")
+    void shouldBuildKeysetQuery() {
+        // when
+        var page = dataTemplate.findPage(connection, 3, PAGE_SIZE);
+
+        // then
+        assertThat(dbExecutor.sqls)
+                .containsExactly("select no,label,param1 from manager where no > ? order by no limit ?;");
+        assertThat(dbExecutor.params).containsExactly(List.of(3L, PAGE_SIZE));
+        assertThat(dbExecutor.fetchSizes).containsExactly(PAGE_SIZE);
+        assertThat(page).extracting(Manager::getNo).containsExactly(4L, 5L, 6L, 7L);
+    }
+
+    @Test
+    @DisplayName(" не включает afterId в страницу и проходит все записи без пропусков и повторов")
+    void shouldWalkAllPagesExcludingAfterId() {
+        // given
+        var ids = new ArrayList<Long>();
+        var pageSizes = new ArrayList<Integer>();
+        long afterId = 0;
+
+        // when
+        List<Manager> page;
+        do {
+            page = dataTemplate.findPage(connection, afterId, PAGE_SIZE);
+            pageSizes.add(page.size());
+            for (var manager : page) {
+                ids.add(manager.getNo());
+                afterId = manager.getNo();
+            }
+        } while (!page.isEmpty());
+
+        // then
+        assertThat(pageSizes).containsExactly(4, 4, 2, 0);
+        assertThat(ids).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(dataTemplate.findPage(connection, MANAGERS, PAGE_SIZE)).isEmpty();
+        assertThat(dataTemplate.findPage(connection, MANAGERS - 1, PAGE_SIZE))
+                .extracting(Manager::getLabel)
+                .containsExactly("label" + MANAGERS);
+    }
+
+    /** Запоминает запросы executeSelectEach с их параметрами */
+    private static class RecordingDbExecutor extends DbExecutorImpl {
+        private final List<String> sqls = new ArrayList<>();
+        private final List<List<Object>> params = new ArrayList<>();
+        private final List<Integer> fetchSizes = new ArrayList<>();
+
+        @Override
+        public void executeSelectEach(
+                Connection connection, String sql, List<Object> params, int fetchSize, RowCallback rowCallback) {
+            sqls.add(sql);
+            this.params.add(params);
+            fetchSizes.add(fetchSize);
+            super.executeSelectEach(connection, sql, params, fetchSize, rowCallback);
+        }
+    }
+}
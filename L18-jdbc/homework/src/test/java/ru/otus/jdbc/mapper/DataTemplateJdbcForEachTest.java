@@ -0,0 +1,81 @@
+package ru.otus.jdbc.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.core.repository.executor.DbExecutorImpl;
+import ru.otus.crm.model.Manager;
+
+@DisplayName("Обход всех записей в DataTemplateJdbc ")
+class DataTemplateJdbcForEachTest {
+    private static final String URL_TEMPLATE =
+            "jdbc:h2:mem:%s;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final int MANAGERS = 100;
+
+    private Connection connection;
+    private DataTemplateJdbc<Manager> dataTemplate;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL_TEMPLATE.formatted("each" + System.nanoTime()), "sa", "");
+        try (var statement = connection.createStatement()) {
+            statement.execute("create table manager (no bigint primary key, label varchar(50), param1 varchar(50))");
+        }
+        var entityClassMetaData = new EntityClassMetaDataImpl<>(Manager.class);
+        var ids = new AtomicLong();
+        dataTemplate = new DataTemplateJdbc<>(
+                new DbExecutorImpl(),
+                new EntitySQLMetaDataImpl(entityClassMetaData),
+                entityClassMetaData,
+                conn -> ids.incrementAndGet());
+        var managers = new ArrayList<Manager>();
+        for (var idx = 1; idx <= MANAGERS; idx++) {
+            managers.add(new Manager("label" + idx));
+        }
+        dataTemplate.insertAll(connection, managers);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        connection.close();
+    }
+
+    @Test
+    @DisplayName(" передает в action каждую запись ровно один раз")
+    void shouldVisitEveryRowOnce() throws SQLException {
+        // given
+        var labels = new ArrayList<String>();
+
+        // when
+        dataTemplate.forEach(connection, manager -> labels.add(manager.getLabel()));
+
+        // then
+        assertThat(labels).hasSize(MANAGERS).doesNotHaveDuplicates().contains("label1", "label" + MANAGERS);
+        assertThat(connection.getAutoCommit()).isTrue();
+    }
+
+    @Test
+    @DisplayName(" пробрасывает исключение из action и возвращает соединению autocommit")
+    void shouldRestoreAutoCommitWhenActionFails() throws SQLException {
+        // when
+        assertThatThrownBy(() -> dataTemplate.forEach(connection, manager -> {
+                    throw new IllegalStateException("action");
+                }))
+                .isInstanceOf(IllegalStateException.class);
+
+        // then
+        assertThat(connection.getAutoCommit()).isTrue();
+    }
+}
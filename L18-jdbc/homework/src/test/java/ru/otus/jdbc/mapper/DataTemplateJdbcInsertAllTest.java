@@ -0,0 +1,86 @@
+package ru.otus.jdbc.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.otus.core.repository.executor.DbExecutorImpl;
+import ru.otus.crm.model.Manager;
+
+@DisplayName("Пакетная вставка в DataTemplateJdbc ")
+class DataTemplateJdbcInsertAllTest {
+    private static final String URL_TEMPLATE =
+            "jdbc:h2:mem:%s;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    // id от генератора не совпадают с номерами строк, чтобы перепутанные id были видны
+    private static final long FIRST_ID = 1_000;
+
+    private Connection connection;
+    private DataTemplateJdbc<Manager> dataTemplate;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL_TEMPLATE.formatted("insert" + System.nanoTime()), "sa", "");
+        connection.setAutoCommit(false);
+        try (var statement = connection.createStatement()) {
+            statement.execute("create table manager (no bigint primary key, label varchar(50), param1 varchar(50))");
+        }
+        var entityClassMetaData = new EntityClassMetaDataImpl<>(Manager.class);
+        var ids = new AtomicLong(FIRST_ID);
+        dataTemplate = new DataTemplateJdbc<>(
+                new DbExecutorImpl(),
+                new EntitySQLMetaDataImpl(entityClassMetaData),
+                entityClassMetaData,
+                conn -> ids.incrementAndGet());
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        connection.close();
+    }
+
+    @ParameterizedTest(name = " возвращает id вставленных строк в порядке списка: {0} строк")
+    @ValueSource(ints = {0, 63, 64, 130})
+    void shouldReturnIdsOfInsertedRows(int rows) throws SQLException {
+        // given
+        var managers = new ArrayList<Manager>();
+        for (var idx = 0; idx < rows; idx++) {
+            managers.add(new Manager("label" + idx));
+        }
+
+        // when
+        var ids = dataTemplate.insertAll(connection, managers);
+        connection.commit();
+
+        // then
+        var expectedLabels = new LinkedHashMap<Long, String>();
+        for (var idx = 0; idx < ids.size(); idx++) {
+            expectedLabels.put(ids.get(idx), "label" + idx);
+        }
+        assertThat(ids).hasSize(rows).doesNotHaveDuplicates();
+        assertThat(selectLabels()).containsExactlyEntriesOf(expectedLabels);
+    }
+
+    private Map<Long, String> selectLabels() throws SQLException {
+        var labels = new LinkedHashMap<Long, String>();
+        try (var statement = connection.createStatement();
+                var resultSet = statement.executeQuery("select no, label from manager order by no")) {
+            while (resultSet.next()) {
+                labels.put(resultSet.getLong(1), resultSet.getString(2));
+            }
+        }
+        return labels;
+    }
+}
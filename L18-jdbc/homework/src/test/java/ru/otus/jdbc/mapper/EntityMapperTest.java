@@ -0,0 +1,123 @@
+package ru.otus.jdbc.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.crm.model.Id;
+
+@DisplayName("EntityMapper ")
+class EntityMapperTest {
+    private static final String URL = "jdbc:h2:mem:mapper;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String INSERT = "insert into sample values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT = "select * from sample where id = ?";
+    private static final long QUANTITY = 0b1;
+    private static final long NAME = 0b10000;
+
+    private final EntityMapper<Sample> mapper = new EntityClassMetaDataImpl<>(Sample.class).getMapper();
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        try (var statement = connection.createStatement()) {
+            statement.execute("create table sample (id bigint primary key, quantity int, priority int, score double,"
+                    + " active boolean, name varchar(50), revision bigint, amount decimal(10, 2))");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        connection.close();
+    }
+
+    @Test
+    @DisplayName(" записывает и читает поля всех поддерживаемых типов, включая null")
+    void shouldRoundTripAllFieldTypes() throws SQLException {
+        // given
+        var full = new Sample(1L, 7, 3, 2.5, true, "name", 42L, new BigDecimal("10.25"));
+        var withNulls = new Sample(2L, 0, null, 0, false, null, 0, null);
+
+        // when
+        insert(full);
+        insert(withNulls);
+
+        // then
+        assertThat(select(1L)).isEqualTo(full);
+        assertThat(select(2L)).isEqualTo(withNulls);
+    }
+
+    @Test
+    @DisplayName(" по маске пишет только выбранные поля и возвращает индекс следующего параметра")
+    void shouldBindOnlyMaskedFields() throws SQLException {
+        // given
+        var sample = new Sample(1L, 7, 3, 2.5, true, "name", 42L, new BigDecimal("10.25"));
+        insert(sample);
+        var changed = new Sample(1L, 8, null, 0, false, "changed", 0, null);
+
+        // when
+        int nextParameterIndex;
+        try (var pst = connection.prepareStatement("update sample set quantity = ?, name = ? where id = ?")) {
+            nextParameterIndex = mapper.bindFieldsWithoutId(pst, 1, changed, QUANTITY | NAME);
+            mapper.bindId(pst, nextParameterIndex, changed);
+            pst.executeUpdate();
+        }
+
+        // then
+        assertThat(nextParameterIndex).isEqualTo(3);
+        assertThat(select(1L)).isEqualTo(new Sample(1L, 8, 3, 2.5, true, "changed", 42L, new BigDecimal("10.25")));
+    }
+
+    @Test
+    @DisplayName(" отдает id и значения полей без id в порядке колонок")
+    void shouldReturnIdAndFieldValues() {
+        // given
+        var sample = new Sample(1L, 7, null, 2.5, true, "name", 42L, BigDecimal.ONE);
+
+        // when
+        var id = mapper.getId(sample);
+        var values = mapper.getFieldsWithoutId(sample);
+
+        // then
+        assertThat(id).isEqualTo(1L);
+        assertThat(values).containsExactly(7, null, 2.5, true, "name", 42L, BigDecimal.ONE);
+        assertThat(mapper.fieldsWithoutIdCount()).isEqualTo(7);
+    }
+
+    private void insert(Sample sample) throws SQLException {
+        try (var pst = connection.prepareStatement(INSERT)) {
+            mapper.bindId(pst, 1, sample);
+            mapper.bindFieldsWithoutId(pst, 2, sample);
+            pst.executeUpdate();
+        }
+    }
+
+    private Sample select(long id) throws SQLException {
+        try (var pst = connection.prepareStatement(SELECT)) {
+            pst.setLong(1, id);
+            try (var resultSet = pst.executeQuery()) {
+                assertThat(resultSet.next()).isTrue();
+                return mapper.map(resultSet);
+            }
+        }
+    }
+
+    private record Sample(
+            @Id Long id,
+            int quantity,
+            Integer priority,
+            double score,
+            boolean active,
+            String name,
+            long revision,
+            BigDecimal amount) {}
+}
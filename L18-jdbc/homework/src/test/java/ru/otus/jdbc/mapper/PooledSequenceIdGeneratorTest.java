@@ -0,0 +1,145 @@
+package ru.otus.jdbc.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.core.repository.executor.DbExecutorImpl;
+
+@DisplayName("PooledSequenceIdGenerator ")
+class PooledSequenceIdGeneratorTest {
+    private static final String URL_TEMPLATE =
+            "jdbc:h2:mem:%s;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String SEQUENCE = "manager_no_seq";
+    private static final int BLOCK_SIZE = 50;
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 1_000;
+
+    private final CountingDbExecutor dbExecutor = new CountingDbExecutor();
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL_TEMPLATE.formatted("sequence" + System.nanoTime()), "sa", "");
+        try (var statement = connection.createStatement()) {
+            statement.execute("create sequence %s start with 1 increment by %d".formatted(SEQUENCE, BLOCK_SIZE));
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        connection.close();
+    }
+
+    @Test
+    @DisplayName(" выдает id подряд из блоков и обращается к последовательности раз на блок")
+    void shouldIssueIdsFromBlocks() {
+        // given
+        var idGenerator = new PooledSequenceIdGenerator(dbExecutor, SEQUENCE, BLOCK_SIZE);
+
+        // when
+        var ids = new ArrayList<Long>();
+        for (var idx = 0; idx < 120; idx++) {
+            ids.add(idGenerator.nextId(connection));
+        }
+
+        // then
+        assertThat(ids).containsExactlyElementsOf(LongStream.rangeClosed(1, 120).boxed().toList());
+        assertThat(dbExecutor.nextValueCalls.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName(" не выдает повторных id при одновременных запросах из нескольких потоков")
+    void shouldIssueUniqueIdsConcurrently() throws InterruptedException {
+        // given
+        var idGenerator = new PooledSequenceIdGenerator(dbExecutor, SEQUENCE, BLOCK_SIZE);
+        var ids = new ConcurrentLinkedQueue<Long>();
+        var start = new CountDownLatch(1);
+        var threads = new ArrayList<Thread>();
+        for (var idx = 0; idx < THREADS; idx++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                awaitQuietly(start);
+                for (var count = 0; count < IDS_PER_THREAD; count++) {
+                    ids.add(idGenerator.nextId(connection));
+                }
+            }));
+        }
+
+        // when
+        start.countDown();
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        // then
+        // ни один id не теряется: блоки используются целиком
+        long total = (long) THREADS * IDS_PER_THREAD;
+        assertThat(ids).hasSize((int) total).doesNotHaveDuplicates();
+        assertThat(ids).allMatch(id -> id >= 1 && id <= total);
+        assertThat(dbExecutor.nextValueCalls.get()).isEqualTo((int) (total / BLOCK_SIZE));
+    }
+
+    @Test
+    @DisplayName(" не пересекает блоки двух генераторов одной последовательности")
+    void shouldNotOverlapBlocksOfTwoGenerators() {
+        // given
+        var first = new PooledSequenceIdGenerator(dbExecutor, SEQUENCE, BLOCK_SIZE);
+        var second = new PooledSequenceIdGenerator(dbExecutor, SEQUENCE, BLOCK_SIZE);
+
+        // when
+        var ids = new ArrayList<Long>();
+        for (var idx = 0; idx < 3 * BLOCK_SIZE; idx++) {
+            ids.add(first.nextId(connection));
+            ids.add(second.nextId(connection));
+        }
+
+        // then
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(first.nextId(connection)).isEqualTo(6 * BLOCK_SIZE + 1);
+    }
+
+    @Test
+    @DisplayName(" не создается с неположительным размером блока")
+    void shouldRejectNonPositiveBlockSize() {
+        assertThatThrownBy(() -> new PooledSequenceIdGenerator(dbExecutor, SEQUENCE, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Считает запросы к последовательности */
+    private static class CountingDbExecutor extends DbExecutorImpl {
+        private final AtomicInteger nextValueCalls = new AtomicInteger();
+
+        @Override
+        public <T> Optional<T> executeSelect(
+                Connection connection, String sql, List<Object> params, Function<ResultSet, T> rsHandler) {
+            nextValueCalls.incrementAndGet();
+            return super.executeSelect(connection, sql, params, rsHandler);
+        }
+    }
+}
@@ -9,6 +9,8 @@ dependencies {
     implementation("org.postgresql:postgresql")
     runtimeOnly("org.flywaydb:flyway-database-postgresql")
 
+    testAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess")
+    testImplementation("org.openjdk.jmh:jmh-core")
     testImplementation("com.h2database:h2")
     testImplementation("org.junit.jupiter:junit-jupiter-engine")
     testImplementation("org.junit.jupiter:junit-jupiter-params")
@@ -0,0 +1,113 @@
+package ru.otus.core.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * Хранилище одного региона: LRU-карта в памяти процесса с ограничением по числу записей и ttl.
+ *
+ * <p>Устаревшие записи удаляются при чтении, лишние - при вставке, поэтому фоновый поток не нужен.
+ * Согласованность с БД (soft lock, версии) обеспечивает стратегия доступа Hibernate поверх хранилища.
+ */
+class BoundedStorageAccess implements DomainDataStorageAccess {
+    private final String regionName;
+    private final RegionSettings settings;
+    private final LongSupplier nanoClock;
+    private final Map<Object, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    BoundedStorageAccess(String regionName, RegionSettings settings, LongSupplier nanoClock) {
+        this.regionName = regionName;
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                if (size() > settings.maxEntries()) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && isExpired(entry)) {
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        long expiresAtNanos = settings.expires() ? nanoClock.getAsLong() + settings.ttl().toNanos() : Long.MAX_VALUE;
+        synchronized (entries) {
+            entries.put(key, new Entry(value, expiresAtNanos));
+        }
+        puts.increment();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        synchronized (entries) {
+            var entry = entries.get(key);
+            return entry != null && !isExpired(entry);
+        }
+    }
+
+    @Override
+    public void evictData() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public void evictData(Object key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    @Override
+    public void release() {
+        evictData();
+    }
+
+    RegionStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new RegionStats(
+                regionName, hits.sum(), misses.sum(), puts.sum(), evictions.sum(), expirations.sum(), size);
+    }
+
+    private boolean isExpired(Entry entry) {
+        return settings.expires() && nanoClock.getAsLong() - entry.expiresAtNanos() >= 0;
+    }
+
+    private record Entry(Object value, long expiresAtNanos) {}
+}
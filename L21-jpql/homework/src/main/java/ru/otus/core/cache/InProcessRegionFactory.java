@@ -0,0 +1,91 @@
+package ru.otus.core.cache;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Кэш второго уровня Hibernate в памяти процесса: регионы сущностей, коллекций и запросов.
+ *
+ * <p>Подключается настройкой hibernate.cache.region.factory_class. Размер и ttl задаются на регион
+ * (otus.cache.region.&lt;регион&gt;.max_entries / ttl_seconds) или для всех сразу (otus.cache.default.*).
+ * Регион меток времени обновления таблиц не ограничивается: вытеснение метки сделало бы запрос из кэша
+ * запросов устаревшим без признаков.
+ */
+public class InProcessRegionFactory extends RegionFactoryTemplate {
+    public static final String REGION_PREFIX = "otus.cache.region.";
+    public static final String DEFAULT_MAX_ENTRIES = "otus.cache.default.max_entries";
+    public static final String DEFAULT_TTL_SECONDS = "otus.cache.default.ttl_seconds";
+    static final String MAX_ENTRIES = "max_entries";
+    static final String TTL_SECONDS = "ttl_seconds";
+
+    private final Map<String, BoundedStorageAccess> regions = new ConcurrentHashMap<>();
+    private volatile Map<String, Object> configValues = Map.of();
+
+    /** Фабрика регионов, с которой построена sessionFactory */
+    public static InProcessRegionFactory of(SessionFactory sessionFactory) {
+        RegionFactory regionFactory =
+                sessionFactory.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+        if (regionFactory instanceof InProcessRegionFactory inProcessRegionFactory) {
+            return inProcessRegionFactory;
+        }
+        throw new IllegalStateException("second-level cache is not in-process: " + regionFactory);
+    }
+
+    /** Счетчики попаданий и промахов по всем регионам */
+    public List<RegionStats> regionStats() {
+        return regions.values().stream()
+                .map(BoundedStorageAccess::stats)
+                .sorted(Comparator.comparing(RegionStats::regionName))
+                .toList();
+    }
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        this.configValues = configValues;
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        regions.values().forEach(BoundedStorageAccess::release);
+        regions.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(
+            DomainDataRegionConfig regionConfig, DomainDataRegionBuildingContext buildingContext) {
+        return createStorageAccess(regionConfig.getRegionName(), settings(regionConfig.getRegionName()));
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(
+            String regionName, SessionFactoryImplementor sessionFactory) {
+        return createStorageAccess(regionName, settings(regionName));
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(
+            String regionName, SessionFactoryImplementor sessionFactory) {
+        return createStorageAccess(regionName, RegionSettings.UNBOUNDED);
+    }
+
+    private RegionSettings settings(String regionName) {
+        return RegionSettings.of(regionName, configValues);
+    }
+
+    private BoundedStorageAccess createStorageAccess(String regionName, RegionSettings settings) {
+        var storageAccess = new BoundedStorageAccess(regionName, settings, System::nanoTime);
+        regions.put(regionName, storageAccess);
+        return storageAccess;
+    }
+}
@@ -0,0 +1,50 @@
+package ru.otus.core.cache;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Размер и время жизни записей одного региона.
+ *
+ * <p>Читаются из настроек Hibernate: сначала otus.cache.region.&lt;регион&gt;.*, потом otus.cache.default.*
+ */
+record RegionSettings(int maxEntries, Duration ttl) {
+    static final RegionSettings UNBOUNDED = new RegionSettings(Integer.MAX_VALUE, Duration.ZERO);
+
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+
+    RegionSettings {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must not be negative: " + ttl);
+        }
+    }
+
+    static RegionSettings of(String regionName, Map<String, Object> configValues) {
+        var defaults = new RegionSettings(
+                intValue(configValues, InProcessRegionFactory.DEFAULT_MAX_ENTRIES, DEFAULT_MAX_ENTRIES),
+                Duration.ofSeconds(
+                        intValue(configValues, InProcessRegionFactory.DEFAULT_TTL_SECONDS, DEFAULT_TTL.toSeconds())));
+        String prefix = InProcessRegionFactory.REGION_PREFIX + regionName + ".";
+        return new RegionSettings(
+                intValue(configValues, prefix + InProcessRegionFactory.MAX_ENTRIES, defaults.maxEntries()),
+                Duration.ofSeconds(intValue(
+                        configValues, prefix + InProcessRegionFactory.TTL_SECONDS, defaults.ttl().toSeconds())));
+    }
+
+    /** ttl = 0 - записи не устаревают */
+    boolean expires() {
+        return !ttl.isZero();
+    }
+
+    private static int intValue(Map<String, Object> configValues, String name, long defaultValue) {
+        var value = configValues.get(name);
+        if (value == null) {
+            return Math.toIntExact(defaultValue);
+        }
+        return value instanceof Number number ? number.intValue() : Integer.parseInt(value.toString().trim());
+    }
+}
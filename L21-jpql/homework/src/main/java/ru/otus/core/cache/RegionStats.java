@@ -0,0 +1,17 @@
+package ru.otus.core.cache;
+
+/** Счетчики одного региона кэша второго уровня на момент снятия */
+public record RegionStats(
+        String regionName, long hits, long misses, long puts, long evictions, long expirations, int size) {
+
+    public double hitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "%s: size=%d, hits=%d, misses=%d, hitRatio=%.2f, puts=%d, evictions=%d, expirations=%d"
+                .formatted(regionName, size, hits, misses, hitRatio(), puts, evictions, expirations);
+    }
+}
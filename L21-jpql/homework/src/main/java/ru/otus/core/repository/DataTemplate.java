@@ -2,6 +2,7 @@ package ru.otus.core.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import org.hibernate.Session;
 
 public interface DataTemplate<T> {
@@ -11,7 +12,19 @@ public interface DataTemplate<T> {
 
     List<T> findAll(Session session);
 
+    // все сущности по возрастанию id порциями по fetchSize, без накопления в сессии
+    void forEach(Session session, Consumer<? super T> action, int fetchSize);
+
+    // до limit сущностей с id больше afterId по возрастанию id
+    List<T> findPage(Session session, long afterId, int limit);
+
     T insert(Session session, T object);
 
     T update(Session session, T object);
+
+    // вставка пачками JDBC; первый уровень кэша сессии периодически очищается
+    List<T> insertAll(Session session, List<T> objects);
+
+    // изменение пачками JDBC; возвращает управляемые копии в порядке objects
+    List<T> updateAll(Session session, List<T> objects);
 }
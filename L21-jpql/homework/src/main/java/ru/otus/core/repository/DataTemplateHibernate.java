@@ -1,7 +1,11 @@
 package ru.otus.core.repository;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
 
 public class DataTemplateHibernate<T> implements DataTemplate<T> {
@@ -24,7 +28,8 @@ public class DataTemplateHibernate<T> implements DataTemplate<T> {
         var root = criteriaQuery.from(clazz);
         criteriaQuery.select(root).where(criteriaBuilder.equal(root.get(entityFieldName), entityFieldValue));
 
-        var query = session.createQuery(criteriaQuery);
+        // в кэше запросов лежат только id, сами сущности берутся из их регионов
+        var query = session.createQuery(criteriaQuery).setCacheable(true);
         return query.getResultList();
     }
 
@@ -34,6 +39,54 @@ public class DataTemplateHibernate<T> implements DataTemplate<T> {
                 .getResultList();
     }
 
+    /**
+     * Курсор (forward-only) идет только по id, а сущности читаются порциями по fetchSize id одним запросом.
+     * EAGER SUBSELECT телефонов тогда подгружает телефоны одним запросом на порцию. После каждой порции
+     * сессия очищается, поэтому память не зависит от размера таблицы. Кэш второго уровня при этом
+     * не заполняется. Очищается вся сессия, загруженные в ней ранее сущности тоже отсоединяются.
+     */
+    @Override
+    public void forEach(Session session, Consumer<? super T> action, int fetchSize) {
+        String idName = idName(session);
+        var criteriaBuilder = session.getCriteriaBuilder();
+        var idsQuery = criteriaBuilder.createQuery(Long.class);
+        var root = idsQuery.from(clazz);
+        idsQuery.select(root.<Long>get(idName)).orderBy(criteriaBuilder.asc(root.get(idName)));
+
+        var cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try (var ids = session.createQuery(idsQuery).setFetchSize(fetchSize).scroll(ScrollMode.FORWARD_ONLY)) {
+            var chunk = new ArrayList<Long>(fetchSize);
+            while (ids.next()) {
+                chunk.add(ids.get());
+                if (chunk.size() == fetchSize) {
+                    processChunk(session, idName, chunk, action);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(session, idName, chunk, action);
+            }
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
+    }
+
+    /** Keyset-пагинация по атрибуту @Id: where id > afterId order by id, без offset */
+    @Override
+    public List<T> findPage(Session session, long afterId, int limit) {
+        String idName = idName(session);
+        var criteriaBuilder = session.getCriteriaBuilder();
+        var criteriaQuery = criteriaBuilder.createQuery(clazz);
+        var root = criteriaQuery.from(clazz);
+        criteriaQuery
+                .select(root)
+                .where(criteriaBuilder.greaterThan(root.<Long>get(idName), afterId))
+                .orderBy(criteriaBuilder.asc(root.get(idName)));
+
+        return session.createQuery(criteriaQuery).setMaxResults(limit).getResultList();
+    }
+
     @Override
     public T insert(Session session, T object) {
         session.persist(object);
@@ -44,4 +97,59 @@ public class DataTemplateHibernate<T> implements DataTemplate<T> {
     public T update(Session session, T object) {
         return session.merge(object);
     }
+
+    /**
+     * Каждые jdbc.batch_size сущностей сессия сбрасывается (flush) и очищается (clear): insert-ы уходят
+     * пачками, упорядоченными по таблицам (order_inserts), а контекст персистентности не растет.
+     * Очищается вся сессия, поэтому загруженные в ней ранее сущности тоже становятся отсоединенными.
+     */
+    @Override
+    public List<T> insertAll(Session session, List<T> objects) {
+        int batchSize = HibernateUtils.jdbcBatchSize(session);
+        for (var idx = 0; idx < objects.size(); idx++) {
+            session.persist(objects.get(idx));
+            if ((idx + 1) % batchSize == 0) {
+                flushAndClear(session);
+            }
+        }
+        flushAndClear(session);
+        return objects;
+    }
+
+    @Override
+    public List<T> updateAll(Session session, List<T> objects) {
+        int batchSize = HibernateUtils.jdbcBatchSize(session);
+        var merged = new ArrayList<T>(objects.size());
+        for (var object : objects) {
+            merged.add(session.merge(object));
+            if (merged.size() % batchSize == 0) {
+                flushAndClear(session);
+            }
+        }
+        flushAndClear(session);
+        return merged;
+    }
+
+    private void processChunk(Session session, String idName, List<Long> ids, Consumer<? super T> action) {
+        var criteriaBuilder = session.getCriteriaBuilder();
+        var criteriaQuery = criteriaBuilder.createQuery(clazz);
+        var root = criteriaQuery.from(clazz);
+        criteriaQuery
+                .select(root)
+                .where(root.get(idName).in(ids))
+                .orderBy(criteriaBuilder.asc(root.get(idName)));
+
+        session.createQuery(criteriaQuery).setReadOnly(true).getResultList().forEach(action);
+        session.clear();
+    }
+
+    private String idName(Session session) {
+        var entityType = session.getMetamodel().entity(clazz);
+        return entityType.getId(entityType.getIdType().getJavaType()).getName();
+    }
+
+    private static void flushAndClear(Session session) {
+        session.flush();
+        session.clear();
+    }
 }
@@ -1,14 +1,27 @@
 package ru.otus.core.repository;
 
 import java.util.Arrays;
+import java.util.Map;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.Metadata;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 
 public final class HibernateUtils {
+    public static final int JDBC_BATCH_SIZE = 50;
+
+    // значения по умолчанию, настройки из конфигурации их перекрывают;
+    // default_batch_fetch_size - связанные EAGER-сущности результата запроса читаются через in (...), а не по одной
+    private static final Map<String, Object> BATCH_SETTINGS = Map.of(
+            AvailableSettings.STATEMENT_BATCH_SIZE, JDBC_BATCH_SIZE,
+            AvailableSettings.ORDER_INSERTS, true,
+            AvailableSettings.ORDER_UPDATES, true,
+            AvailableSettings.DEFAULT_BATCH_FETCH_SIZE, JDBC_BATCH_SIZE);
 
     private HibernateUtils() {}
 
@@ -20,9 +33,22 @@ public final class HibernateUtils {
         return metadata.getSessionFactoryBuilder().build();
     }
 
+    /** Сколько сущностей сессия копит до flush: размер пачки JDBC из настроек фабрики */
+    public static int jdbcBatchSize(Session session) {
+        var sessionBatchSize = session.getJdbcBatchSize();
+        if (sessionBatchSize != null && sessionBatchSize > 0) {
+            return sessionBatchSize;
+        }
+        int factoryBatchSize = session.getSessionFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getSessionFactoryOptions()
+                .getJdbcBatchSize();
+        return factoryBatchSize > 0 ? factoryBatchSize : JDBC_BATCH_SIZE;
+    }
+
     private static StandardServiceRegistry createServiceRegistry(Configuration configuration) {
-        return new StandardServiceRegistryBuilder()
-                .applySettings(configuration.getProperties())
-                .build();
+        var serviceRegistryBuilder = new StandardServiceRegistryBuilder();
+        BATCH_SETTINGS.forEach(serviceRegistryBuilder::applySetting);
+        return serviceRegistryBuilder.applySettings(configuration.getProperties()).build();
     }
 }
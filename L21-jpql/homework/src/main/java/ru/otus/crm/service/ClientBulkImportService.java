@@ -0,0 +1,96 @@
+package ru.otus.crm.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.otus.core.repository.HibernateUtils;
+import ru.otus.core.sessionmanager.DataBaseOperationException;
+import ru.otus.crm.model.Address;
+import ru.otus.crm.model.Client;
+import ru.otus.crm.model.Phone;
+
+/**
+ * Массовый импорт клиентов с адресами и телефонами через StatelessSession.
+ *
+ * <p>Нет контекста персистентности, снимков для dirty checking, каскадов и кэша второго уровня:
+ * строки порции вставляются по таблицам (адреса, клиенты, телефоны) пачками JDBC, порция коммитится
+ * отдельной транзакцией. Клиенты не клонируются, id проставляются переданным объектам.
+ * При ошибке откатывается только текущая порция, уже закоммиченные остаются в БД.
+ */
+public class ClientBulkImportService {
+    private static final Logger log = LoggerFactory.getLogger(ClientBulkImportService.class);
+
+    private final SessionFactory sessionFactory;
+    private final int chunkSize;
+
+    public ClientBulkImportService(SessionFactory sessionFactory, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.sessionFactory = sessionFactory;
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportProgress importClients(Stream<Client> clients) {
+        return importClients(clients, progress -> log.info("imported {}", progress));
+    }
+
+    /** progressListener вызывается после коммита каждой порции */
+    public ImportProgress importClients(Stream<Client> clients, Consumer<ImportProgress> progressListener) {
+        long startNanos = System.nanoTime();
+        var progress = new ImportProgress(0, 0, Duration.ZERO);
+        try (var session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(HibernateUtils.JDBC_BATCH_SIZE);
+            var chunk = new ArrayList<Client>(chunkSize);
+            var iterator = clients.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                    long phones = insertChunk(session, chunk, progress);
+                    progress = new ImportProgress(
+                            progress.clients() + chunk.size(),
+                            progress.phones() + phones,
+                            Duration.ofNanos(System.nanoTime() - startNanos));
+                    progressListener.accept(progress);
+                    chunk.clear();
+                }
+            }
+        }
+        return progress;
+    }
+
+    private long insertChunk(StatelessSession session, List<Client> chunk, ImportProgress progress) {
+        var addresses = new ArrayList<Address>(chunk.size());
+        var phones = new ArrayList<Phone>(chunk.size());
+        for (var client : chunk) {
+            if (client.getAddress() != null) {
+                addresses.add(client.getAddress());
+            }
+            if (client.getPhones() != null) {
+                client.getPhones().stream().filter(Objects::nonNull).forEach(phone -> {
+                    phone.setClient(client);
+                    phones.add(phone);
+                });
+            }
+        }
+        var transaction = session.beginTransaction();
+        try {
+            // адреса раньше клиентов, клиенты раньше телефонов: внешние ключи
+            session.insertMultiple(addresses);
+            session.insertMultiple(chunk);
+            session.insertMultiple(phones);
+            transaction.commit();
+            return phones.size();
+        } catch (RuntimeException ex) {
+            transaction.rollback();
+            throw new DataBaseOperationException("bulk import failed, committed " + progress, ex);
+        }
+    }
+}
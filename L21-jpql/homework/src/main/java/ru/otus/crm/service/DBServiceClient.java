@@ -2,13 +2,25 @@ package ru.otus.crm.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import ru.otus.crm.model.Client;
 
 public interface DBServiceClient {
 
     Client saveClient(Client client);
 
+    // сохранение без клонирования и без возврата графа объектов, см. реализацию
+    SavedClient saveClientInPlace(Client client);
+
+    // все клиенты сохраняются в одной транзакции, результат - в порядке clients
+    List<Client> saveAll(List<Client> clients);
+
     Optional<Client> getClient(long id);
 
     List<Client> findAll();
+
+    // обход всех клиентов без загрузки таблицы в память
+    void forEach(Consumer<? super Client> action);
+
+    List<Client> findPage(long afterId, int limit);
 }
@@ -2,14 +2,18 @@ package ru.otus.crm.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.otus.core.repository.DataTemplate;
 import ru.otus.core.sessionmanager.TransactionManager;
 import ru.otus.crm.model.Client;
+import ru.otus.crm.model.Phone;
 
 public class DbServiceClientImpl implements DBServiceClient {
     private static final Logger log = LoggerFactory.getLogger(DbServiceClientImpl.class);
+    // клиентов в одной порции forEach: по запросу клиентов и телефонов на порцию
+    private static final int FETCH_SIZE = 1_000;
 
     private final DataTemplate<Client> clientDataTemplate;
     private final TransactionManager transactionManager;
@@ -34,6 +38,74 @@ public class DbServiceClientImpl implements DBServiceClient {
         });
     }
 
+    /**
+     * В отличие от saveClient клиент не клонируется. Новый клиент сохраняется сам: id проставляются ему,
+     * его адресу и телефонам. Изменения существующего merge переносит в управляемую копию, переданный
+     * объект не меняется. Вместо отсоединенного графа объектов возвращается только id.
+     * Если транзакция вставки откатилась, проставленные в ней id сбрасываются обратно в null,
+     * и того же клиента можно сохранить повторно.
+     */
+    @Override
+    public SavedClient saveClientInPlace(Client client) {
+        if (client.getId() != null) {
+            return saveInPlace(client);
+        }
+        var address = client.getAddress();
+        boolean newAddress = address != null && address.getId() == null;
+        var newPhones = client.getPhones() == null
+                ? List.<Phone>of()
+                : client.getPhones().stream()
+                        .filter(phone -> phone != null && phone.getId() == null)
+                        .toList();
+        try {
+            return saveInPlace(client);
+        } catch (RuntimeException ex) {
+            client.setId(null);
+            if (newAddress) {
+                address.setId(null);
+            }
+            newPhones.forEach(phone -> phone.setId(null));
+            throw ex;
+        }
+    }
+
+    private SavedClient saveInPlace(Client client) {
+        return transactionManager.doInTransaction(session -> {
+            if (client.getPhones() != null) {
+                client.getPhones().forEach(phone -> phone.setClient(client));
+            }
+            if (client.getId() == null) {
+                clientDataTemplate.insert(session, client);
+                log.info("created client id:{}", client.getId());
+                return new SavedClient(client.getId(), true);
+            }
+            var savedClient = clientDataTemplate.update(session, client);
+            log.info("updated client id:{}", savedClient.getId());
+            return new SavedClient(savedClient.getId(), false);
+        });
+    }
+
+    @Override
+    public List<Client> saveAll(List<Client> clients) {
+        return transactionManager.doInTransaction(session -> {
+            var clientsCloned = clients.stream().map(Client::clone).toList();
+            var newClients = clientsCloned.stream()
+                    .filter(client -> client.getId() == null)
+                    .toList();
+            var changedClients = clientsCloned.stream()
+                    .filter(client -> client.getId() != null)
+                    .toList();
+            var inserted = clientDataTemplate.insertAll(session, newClients).iterator();
+            var updated = clientDataTemplate.updateAll(session, changedClients).iterator();
+            // id проставляются копиям, у исходных клиентов по id по-прежнему видно, что было вставкой
+            var savedClients = clients.stream()
+                    .map(client -> client.getId() == null ? inserted.next() : updated.next())
+                    .toList();
+            log.info("saved clients, created:{}, updated:{}", newClients.size(), changedClients.size());
+            return savedClients;
+        });
+    }
+
     @Override
     public Optional<Client> getClient(long id) {
         return transactionManager.doInReadOnlyTransaction(session -> {
@@ -51,4 +123,21 @@ public class DbServiceClientImpl implements DBServiceClient {
             return clientList;
         });
     }
+
+    @Override
+    public void forEach(Consumer<? super Client> action) {
+        transactionManager.doInReadOnlyTransaction(session -> {
+            clientDataTemplate.forEach(session, action, FETCH_SIZE);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Client> findPage(long afterId, int limit) {
+        return transactionManager.doInReadOnlyTransaction(session -> {
+            var clientList = clientDataTemplate.findPage(session, afterId, limit);
+            log.info("client page after id:{}, size:{}", afterId, clientList.size());
+            return clientList;
+        });
+    }
 }
@@ -0,0 +1,18 @@
+package ru.otus.crm.service;
+
+import java.time.Duration;
+
+/** Сколько уже закоммичено массовым импортом и за какое время */
+public record ImportProgress(long clients, long phones, Duration elapsed) {
+
+    public double clientsPerSecond() {
+        long millis = elapsed.toMillis();
+        return millis == 0 ? 0 : clients * 1000.0 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return "clients:%d, phones:%d, elapsed:%dms, clients/s:%.0f"
+                .formatted(clients, phones, elapsed.toMillis(), clientsPerSecond());
+    }
+}
@@ -0,0 +1,4 @@
+package ru.otus.crm.service;
+
+/** Итог сохранения без копии клиента: id и была ли это вставка */
+public record SavedClient(long id, boolean created) {}
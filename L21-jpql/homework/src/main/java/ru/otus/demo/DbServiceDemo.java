@@ -1,8 +1,10 @@
 package ru.otus.demo;
 
+import java.util.concurrent.atomic.AtomicLong;
 import org.hibernate.cfg.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ru.otus.core.cache.InProcessRegionFactory;
 import ru.otus.core.repository.DataTemplateHibernate;
 import ru.otus.core.repository.HibernateUtils;
 import ru.otus.core.sessionmanager.TransactionManagerHibernate;
@@ -51,5 +53,12 @@ public class DbServiceDemo {
 
         log.info("All clients");
         dbServiceClient.findAll().forEach(client -> log.info("client:{}", client));
+
+        var clientsCount = new AtomicLong();
+        dbServiceClient.forEach(client -> clientsCount.incrementAndGet());
+        log.info("clients counted by forEach:{}", clientsCount.get());
+
+        log.info("Second-level cache regions");
+        InProcessRegionFactory.of(sessionFactory).regionStats().forEach(stats -> log.info("{}", stats));
     }
 }
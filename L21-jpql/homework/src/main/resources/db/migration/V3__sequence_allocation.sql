@@ -0,0 +1,6 @@
+-- Hibernate не может пакетировать insert-ы с GenerationType.IDENTITY: id известен только после выполнения.
+-- Поэтому id берутся из последовательностей блоками по allocationSize = 50 (оптимизатор pooled),
+-- и шаг последовательностей должен с ним совпадать.
+alter sequence client_seq increment by 50;
+alter sequence address_id_seq increment by 50;
+alter sequence phone_id_seq increment by 50;
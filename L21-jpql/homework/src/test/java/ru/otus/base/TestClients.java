@@ -0,0 +1,23 @@
+package ru.otus.base;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import ru.otus.crm.model.Address;
+import ru.otus.crm.model.Client;
+import ru.otus.crm.model.Phone;
+
+/** Новые (без id) клиенты для тестов и бенчмарков: у каждого адрес и два телефона */
+public final class TestClients {
+
+    private TestClients() {}
+
+    public static Stream<Client> newClients(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(idx -> new Client(
+                        null,
+                        "client" + idx,
+                        new Address(null, "street" + idx),
+                        List.of(new Phone(null, idx + "-1"), new Phone(null, idx + "-2"))));
+    }
+}
@@ -0,0 +1,59 @@
+package ru.otus.core.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BoundedStorageAccessTest {
+    private final AtomicLong nanoClock = new AtomicLong();
+
+    @Test
+    @DisplayName(" вытесняет давно не читанные записи при превышении размера")
+    void shouldEvictLeastRecentlyUsed() {
+        var storage = new BoundedStorageAccess("test", new RegionSettings(2, Duration.ZERO), nanoClock::get);
+        storage.putIntoCache(1L, "one", null);
+        storage.putIntoCache(2L, "two", null);
+        storage.getFromCache(1L, null);
+
+        storage.putIntoCache(3L, "three", null);
+
+        assertThat(storage.getFromCache(1L, null)).isEqualTo("one");
+        assertThat(storage.getFromCache(2L, null)).isNull();
+        assertThat(storage.getFromCache(3L, null)).isEqualTo("three");
+        assertThat(storage.stats())
+                .extracting(RegionStats::hits, RegionStats::misses, RegionStats::evictions, RegionStats::size)
+                .containsExactly(3L, 1L, 1L, 2);
+    }
+
+    @Test
+    @DisplayName(" не отдает записи старше ttl")
+    void shouldExpireEntries() {
+        var storage = new BoundedStorageAccess("test", new RegionSettings(10, Duration.ofSeconds(5)), nanoClock::get);
+        storage.putIntoCache(1L, "one", null);
+
+        nanoClock.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertThat(storage.getFromCache(1L, null)).isEqualTo("one");
+
+        nanoClock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(storage.contains(1L)).isFalse();
+        assertThat(storage.getFromCache(1L, null)).isNull();
+        assertThat(storage.stats().expirations()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName(" берет настройки региона, а недостающие - из настроек по умолчанию")
+    void shouldResolveRegionSettings() {
+        Map<String, Object> configValues = Map.of(
+                InProcessRegionFactory.DEFAULT_MAX_ENTRIES, "100",
+                InProcessRegionFactory.DEFAULT_TTL_SECONDS, "30",
+                InProcessRegionFactory.REGION_PREFIX + "client.max_entries", "7");
+
+        assertThat(RegionSettings.of("client", configValues)).isEqualTo(new RegionSettings(7, Duration.ofSeconds(30)));
+        assertThat(RegionSettings.of("address", configValues))
+                .isEqualTo(new RegionSettings(100, Duration.ofSeconds(30)));
+    }
+}
@@ -0,0 +1,64 @@
+package ru.otus.core.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.base.AbstractHibernateTest;
+import ru.otus.crm.model.Address;
+import ru.otus.crm.model.Client;
+import ru.otus.crm.model.Phone;
+
+class InProcessRegionFactoryTest extends AbstractHibernateTest {
+
+    @Test
+    @DisplayName(" повторно читает клиента с адресом и телефонами из кэша второго уровня, без запросов в БД")
+    void shouldReadClientFromSecondLevelCache() {
+        // given
+        var savedClient = dbServiceClient.saveClient(new Client(
+                null,
+                "Vasya",
+                new Address(null, "AnyStreet"),
+                List.of(new Phone(null, "13-555-22"), new Phone(null, "14-666-333"))));
+        var firstLoaded = dbServiceClient.getClient(savedClient.getId());
+        var statistics = sessionFactory.getStatistics();
+        long statementsBefore = statistics.getPrepareStatementCount();
+
+        // when
+        var secondLoaded = dbServiceClient.getClient(savedClient.getId());
+
+        // then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsBefore);
+        assertThat(secondLoaded)
+                .isPresent()
+                .get()
+                .usingRecursiveComparison()
+                .isEqualTo(firstLoaded.orElseThrow());
+        assertThat(InProcessRegionFactory.of(sessionFactory).regionStats())
+                .filteredOn(stats -> List.of("client", "client.phones", "address", "phone")
+                        .contains(stats.regionName()))
+                .hasSize(4)
+                .allSatisfy(stats -> assertThat(stats.hits()).isPositive());
+    }
+
+    @Test
+    @DisplayName(" после изменения клиента отдает из кэша новое состояние")
+    void shouldReadUpdatedClient() {
+        // given
+        var savedClient =
+                dbServiceClient.saveClient(new Client(null, "Vasya", new Address(null, "AnyStreet"), List.of()));
+        var loadedClient = dbServiceClient.getClient(savedClient.getId()).orElseThrow();
+
+        // when
+        loadedClient.setName("updatedName");
+        dbServiceClient.saveClient(loadedClient);
+
+        // then
+        assertThat(dbServiceClient.getClient(savedClient.getId()))
+                .isPresent()
+                .get()
+                .extracting(Client::getName)
+                .isEqualTo("updatedName");
+    }
+}
@@ -0,0 +1,52 @@
+package ru.otus.core.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.base.AbstractHibernateTest;
+import ru.otus.base.TestClients;
+import ru.otus.crm.model.Client;
+
+class DataTemplateHibernateForEachTest extends AbstractHibernateTest {
+    private static final int CLIENTS_COUNT = 25;
+    private static final int FETCH_SIZE = 10;
+
+    @Test
+    @DisplayName(" обходит всех клиентов с телефонами порциями, не накапливая их в сессии")
+    void shouldVisitAllClientsChunkByChunk() {
+        // given
+        var savedIds = dbServiceClient.saveAll(TestClients.newClients(CLIENTS_COUNT).toList()).stream()
+                .map(Client::getId)
+                .toList();
+        var statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        // when
+        var visited = new ArrayList<Client>();
+        var maxSessionEntities = new int[1];
+        transactionManager.doInReadOnlyTransaction(session -> {
+            clientTemplate.forEach(
+                    session,
+                    client -> {
+                        visited.add(client);
+                        maxSessionEntities[0] =
+                                Math.max(maxSessionEntities[0], session.getStatistics().getEntityCount());
+                    },
+                    FETCH_SIZE);
+            return null;
+        });
+
+        // then
+        // контейнер общий для класса: в таблице могут быть клиенты других тестов
+        assertThat(visited).extracting(Client::getId).containsAll(savedIds).doesNotHaveDuplicates().isSorted();
+        assertThat(visited)
+                .filteredOn(client -> savedIds.contains(client.getId()))
+                .allSatisfy(client -> assertThat(client.getPhones()).hasSize(2));
+        // клиент, адрес и два телефона на каждого клиента порции
+        assertThat(maxSessionEntities[0]).isLessThanOrEqualTo(4 * FETCH_SIZE);
+        // запросы идут на порцию, а не на клиента
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(visited.size());
+    }
+}
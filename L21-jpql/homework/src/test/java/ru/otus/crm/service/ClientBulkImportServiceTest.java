@@ -0,0 +1,39 @@
+package ru.otus.crm.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.base.AbstractHibernateTest;
+import ru.otus.base.TestClients;
+
+class ClientBulkImportServiceTest extends AbstractHibernateTest {
+    private static final int CLIENTS_COUNT = 120;
+    private static final int CHUNK_SIZE = 50;
+
+    @Test
+    @DisplayName(" импортирует клиентов с адресами и телефонами порциями и сообщает о прогрессе")
+    void shouldImportClientsInChunks() {
+        // given
+        var importService = new ClientBulkImportService(sessionFactory, CHUNK_SIZE);
+        var clients = TestClients.newClients(CLIENTS_COUNT).toList();
+        var reported = new ArrayList<ImportProgress>();
+
+        // when
+        var progress = importService.importClients(clients.stream(), reported::add);
+
+        // then
+        assertThat(reported).extracting(ImportProgress::clients).containsExactly(50L, 100L, 120L);
+        assertThat(progress.clients()).isEqualTo(CLIENTS_COUNT);
+        assertThat(progress.phones()).isEqualTo(2L * CLIENTS_COUNT);
+        // контейнер общий для класса, поэтому проверяем только импортированных здесь, а не всю таблицу
+        assertThat(clients).allSatisfy(imported -> assertThat(dbServiceClient.getClient(imported.getId()))
+                .isPresent()
+                .get()
+                .satisfies(client -> {
+                    assertThat(client.getAddress()).isNotNull();
+                    assertThat(client.getPhones()).hasSize(2);
+                }));
+    }
+}
@@ -0,0 +1,90 @@
+package ru.otus.crm.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.otus.base.TestClients;
+import ru.otus.core.repository.DataTemplateHibernate;
+import ru.otus.core.sessionmanager.TransactionManagerHibernate;
+import ru.otus.crm.model.Client;
+
+/**
+ * Пропускная способность (клиентов в секунду) трех путей записи на встроенной H2, без контейнера с БД:
+ * saveClient - транзакция и клонирование на каждого клиента, saveAll - одна транзакция с пачками JDBC,
+ * ClientBulkImportService - StatelessSession без контекста персистентности.
+ *
+ * <p>БД - H2ClientDatabase, у каждого клиента адрес и два телефона.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ClientImportBenchmark {
+    private static final int CLIENTS_PER_INVOCATION = 1_000;
+    private static final int IMPORT_CHUNK_SIZE = 500;
+
+    private H2ClientDatabase database;
+    private DBServiceClient dbServiceClient;
+    private ClientBulkImportService importService;
+
+    public static void main(String[] args) throws RunnerException {
+        var opt = new OptionsBuilder()
+                .include(ClientImportBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup(H2ClientDatabase database) {
+        this.database = database;
+        var sessionFactory = database.sessionFactory();
+        dbServiceClient = new DbServiceClientImpl(
+                new TransactionManagerHibernate(sessionFactory), new DataTemplateHibernate<>(Client.class));
+        importService = new ClientBulkImportService(sessionFactory, IMPORT_CHUNK_SIZE);
+    }
+
+    /** Таблицы очищаются перед каждой итерацией, чтобы замеры не зависели от объема уже вставленного */
+    @Setup(Level.Iteration)
+    public void truncate() {
+        database.deleteClients();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS_PER_INVOCATION)
+    public void saveClient() {
+        clients().forEach(dbServiceClient::saveClient);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS_PER_INVOCATION)
+    public List<Client> saveAll() {
+        return dbServiceClient.saveAll(clients().toList());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS_PER_INVOCATION)
+    public ImportProgress bulkImport() {
+        return importService.importClients(clients(), progress -> {});
+    }
+
+    private static Stream<Client> clients() {
+        return TestClients.newClients(CLIENTS_PER_INVOCATION);
+    }
+}
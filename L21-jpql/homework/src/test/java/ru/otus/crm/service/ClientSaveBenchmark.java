@@ -0,0 +1,99 @@
+package ru.otus.crm.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import ru.otus.core.repository.DataTemplateHibernate;
+import ru.otus.core.sessionmanager.TransactionManagerHibernate;
+import ru.otus.crm.model.Address;
+import ru.otus.crm.model.Client;
+import ru.otus.crm.model.Phone;
+
+/**
+ * saveClient (клон клиента с телефонами на каждое сохранение) против saveClientInPlace на встроенной H2.
+ * Разницу в выделении памяти показывает gc.alloc.rate.norm профилировщика GC, байт на операцию.
+ *
+ * <p>БД - H2ClientDatabase. Логирование сохранений выключено:
+ * замеряются копирование и Hibernate, а не вывод в консоль.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ClientSaveBenchmark {
+    private H2ClientDatabase database;
+    private DBServiceClient dbServiceClient;
+    private Client existingClient;
+
+    public static void main(String[] args) throws RunnerException {
+        var opt = new OptionsBuilder()
+                .include(ClientSaveBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup(H2ClientDatabase database) {
+        this.database = database;
+        dbServiceClient = new DbServiceClientImpl(
+                new TransactionManagerHibernate(database.sessionFactory()), new DataTemplateHibernate<>(Client.class));
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(DbServiceClientImpl.class))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+    }
+
+    /** Перед итерацией таблицы очищаются, клиент для update-замеров создается заново и читается отсоединенным */
+    @Setup(Level.Iteration)
+    public void prepareIteration() {
+        database.deleteClients();
+        var saved = dbServiceClient.saveClientInPlace(newClient());
+        existingClient = dbServiceClient.getClient(saved.id()).orElseThrow();
+    }
+
+    @Benchmark
+    public Client insertWithClone() {
+        return dbServiceClient.saveClient(newClient());
+    }
+
+    @Benchmark
+    public SavedClient insertInPlace() {
+        return dbServiceClient.saveClientInPlace(newClient());
+    }
+
+    @Benchmark
+    public Client updateWithClone() {
+        existingClient.setName("updated" + System.nanoTime());
+        return dbServiceClient.saveClient(existingClient);
+    }
+
+    @Benchmark
+    public SavedClient updateInPlace() {
+        existingClient.setName("updated" + System.nanoTime());
+        return dbServiceClient.saveClientInPlace(existingClient);
+    }
+
+    private static Client newClient() {
+        return new Client(
+                null,
+                "client",
+                new Address(null, "street"),
+                List.of(new Phone(null, "13-555-22"), new Phone(null, "14-666-333")));
+    }
+}
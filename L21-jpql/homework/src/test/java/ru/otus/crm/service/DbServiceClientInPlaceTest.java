@@ -0,0 +1,75 @@
+package ru.otus.crm.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.base.AbstractHibernateTest;
+import ru.otus.crm.model.Address;
+import ru.otus.crm.model.Client;
+import ru.otus.crm.model.Phone;
+
+class DbServiceClientInPlaceTest extends AbstractHibernateTest {
+
+    @Test
+    @DisplayName(" сохраняет и изменяет клиента без клонирования, возвращая только id")
+    void shouldSaveClientInPlace() {
+        // given
+        var client = new Client(
+                null,
+                "Vasya",
+                new Address(null, "AnyStreet"),
+                List.of(new Phone(null, "13-555-22"), new Phone(null, "14-666-333")));
+
+        // when
+        var created = dbServiceClient.saveClientInPlace(client);
+
+        // then
+        assertThat(created.created()).isTrue();
+        assertThat(client.getId()).isEqualTo(created.id());
+        var loadedClient = dbServiceClient.getClient(created.id());
+        assertThat(loadedClient).isPresent().get().usingRecursiveComparison().isEqualTo(client);
+
+        // when
+        var changedClient = loadedClient.get();
+        changedClient.setName("updatedName");
+        var updated = dbServiceClient.saveClientInPlace(changedClient);
+
+        // then
+        assertThat(updated).isEqualTo(new SavedClient(created.id(), false));
+        assertThat(dbServiceClient.getClient(created.id()))
+                .isPresent()
+                .get()
+                .extracting(Client::getName)
+                .isEqualTo("updatedName");
+    }
+
+    @Test
+    @DisplayName(" после отката вставки сбрасывает проставленные id, и клиента можно сохранить снова")
+    void shouldClearAssignedIdsOnRollback() {
+        // given
+        var phone = new Phone(null, "1".repeat(51));
+        var client = new Client(null, "Petya", new Address(null, "AnyStreet"), List.of(phone));
+
+        // when
+        assertThatThrownBy(() -> dbServiceClient.saveClientInPlace(client)).isInstanceOf(RuntimeException.class);
+
+        // then
+        assertThat(client.getId()).isNull();
+        assertThat(client.getAddress().getId()).isNull();
+        assertThat(phone.getId()).isNull();
+
+        // when
+        phone.setNumber("13-555-22");
+        var created = dbServiceClient.saveClientInPlace(client);
+
+        // then
+        assertThat(dbServiceClient.getClient(created.id()))
+                .isPresent()
+                .get()
+                .usingRecursiveComparison()
+                .isEqualTo(client);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.otus.crm.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.base.AbstractHibernateTest;
+import ru.otus.base.TestClients;
+import ru.otus.crm.model.Address;
+import ru.otus.crm.model.Client;
+import ru.otus.crm.model.Phone;
+
+class DbServiceClientSaveAllTest extends AbstractHibernateTest {
+    private static final int CLIENTS_COUNT = 120;
+
+    @Test
+    @DisplayName(" сохраняет клиентов с адресами и телефонами пачками JDBC")
+    void shouldSaveAllClientsInBatches() {
+        // given
+        var clients = TestClients.newClients(CLIENTS_COUNT).toList();
+        var statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        // when
+        var savedClients = dbServiceClient.saveAll(clients);
+
+        // then
+        // по строке на клиента, адрес и два телефона дали бы 4 * CLIENTS_COUNT insert-ов
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(CLIENTS_COUNT / 2);
+        assertThat(savedClients).hasSize(CLIENTS_COUNT).extracting(Client::getId).doesNotContainNull();
+        // контейнер общий для класса, поэтому проверяем только сохраненных здесь, а не всю таблицу
+        assertThat(savedClients).allSatisfy(saved -> assertThat(dbServiceClient.getClient(saved.getId()))
+                .isPresent()
+                .get()
+                .satisfies(client -> assertThat(client.getPhones()).hasSize(2)));
+    }
+
+    @Test
+    @DisplayName(" сохраняет вперемешку новых и измененных клиентов в исходном порядке")
+    void shouldSaveNewAndChangedClients() {
+        // given
+        var existing = dbServiceClient.saveClient(new Client(null, "existing", new Address(null, "street"), List.of()));
+        existing.setName("existingUpdated");
+        var created = new Client(null, "created", new Address(null, "street"), List.of(new Phone(null, "1")));
+
+        // when
+        var savedClients = dbServiceClient.saveAll(List.of(created, existing));
+
+        // then
+        assertThat(savedClients).extracting(Client::getName).containsExactly("created", "existingUpdated");
+        assertThat(savedClients.getLast().getId()).isEqualTo(existing.getId());
+        assertThat(dbServiceClient.getClient(existing.getId()))
+                .isPresent()
+                .get()
+                .extracting(Client::getName)
+                .isEqualTo("existingUpdated");
+    }
+}
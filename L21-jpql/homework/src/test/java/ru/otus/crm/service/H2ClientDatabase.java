@@ -0,0 +1,54 @@
+package ru.otus.crm.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.otus.core.repository.HibernateUtils;
+import ru.otus.crm.model.Address;
+import ru.otus.crm.model.Client;
+import ru.otus.crm.model.Phone;
+
+/**
+ * Встроенная H2 для бенчмарков записи клиентов, без контейнера с БД: своя БД на каждый прогон.
+ * Схему создает Hibernate (hbm2ddl), кэш второго уровня выключен.
+ */
+@State(Scope.Benchmark)
+public class H2ClientDatabase {
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var configuration = new Configuration();
+        configuration.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        configuration.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:clients" + System.nanoTime());
+        configuration.setProperty("hibernate.connection.username", "sa");
+        configuration.setProperty("hibernate.connection.password", "");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create");
+        configuration.setProperty("hibernate.cache.use_second_level_cache", "false");
+
+        sessionFactory = HibernateUtils.buildSessionFactory(configuration, Client.class, Address.class, Phone.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    public SessionFactory sessionFactory() {
+        return sessionFactory;
+    }
+
+    /** Удаляет всех клиентов с адресами и телефонами */
+    public void deleteClients() {
+        sessionFactory.inTransaction(session -> {
+            session.createMutationQuery("delete from Phone").executeUpdate();
+            session.createMutationQuery("delete from Client").executeUpdate();
+            session.createMutationQuery("delete from Address").executeUpdate();
+        });
+    }
+}
@@ -7,4 +7,9 @@ dependencies {
     implementation("org.postgresql:postgresql")
     implementation(project(":L18-jdbc:demo"))
     implementation(project(":L18-jdbc:homework"))
+
+    testAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess")
+    testImplementation("org.openjdk.jmh:jmh-core")
+    testImplementation("org.junit.jupiter:junit-jupiter-engine")
+    testImplementation("org.assertj:assertj-core")
 }
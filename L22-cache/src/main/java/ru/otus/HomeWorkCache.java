@@ -1,17 +1,26 @@
 package ru.otus;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import javax.management.JMException;
 import javax.sql.DataSource;
 import org.flywaydb.core.Flyway;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ru.otus.cachehw.AsyncHwListener;
 import ru.otus.cachehw.HwListener;
-import ru.otus.cachehw.MyCache;
+import ru.otus.cachehw.LoadingHwCache;
+import ru.otus.cachehw.OffHeapStore;
+import ru.otus.cachehw.QueryResultCache;
+import ru.otus.cachehw.RecordingHwCache;
+import ru.otus.cachehw.TieredHwCache;
+import ru.otus.cachehw.TinyLfuCache;
 import ru.otus.core.repository.executor.DbExecutorImpl;
 import ru.otus.core.sessionmanager.TransactionRunnerJdbc;
 import ru.otus.crm.datasource.DriverManagerDataSource;
 import ru.otus.crm.model.Client;
+import ru.otus.crm.service.ClientCodec;
 import ru.otus.crm.service.DbServiceCachedClientImpl;
 import ru.otus.crm.service.DbServiceClientImpl;
 import ru.otus.jdbc.mapper.DataTemplateJdbc;
@@ -26,16 +35,27 @@ public class HomeWorkCache {
     private static final String URL = "jdbc:postgresql://localhost:5430/demoDB";
     private static final String USER = "usr";
     private static final String PASSWORD = "pwd";
+    private static final long CACHE_MAXIMUM_SIZE = 1_000;
+    // строки могут менять другие сервисы, поэтому ограничиваем время жизни копии в кэше
+    private static final Duration CLIENT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+    private static final Duration ABSENT_CLIENT_TTL = Duration.ofSeconds(5);
+    private static final long QUERY_CACHE_MAXIMUM_SIZE = 100;
+    // заголовок Client + Long id + String name + узел кэша, без учета символов имени
+    private static final int CLIENT_ENTRY_OVERHEAD_BYTES = 120;
+    private static final int OFF_HEAP_CAPACITY_BYTES = 64 * 1024 * 1024;
 
     private static final Logger log = LoggerFactory.getLogger(HomeWorkCache.class);
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws JMException {
         long start = System.nanoTime();
         var dataSource = new DriverManagerDataSource(URL, USER, PASSWORD);
         flywayMigrations(dataSource);
         var transactionRunner = new TransactionRunnerJdbc(dataSource);
         var dbExecutor = new DbExecutorImpl();
-        var clientCache = new MyCache<Long, Client>();
+        var clientCache = new TinyLfuCache.Builder<Long, Client>()
+                .maximumSize(CACHE_MAXIMUM_SIZE)
+                .expireAfterWrite(CLIENT_EXPIRE_AFTER_WRITE)
+                .build();
 
         HwListener<Long, Client> listener = new HwListener<>() {
             @Override
@@ -44,14 +64,32 @@ public class HomeWorkCache {
             }
         };
 
-        clientCache.addListener(listener);
+        // логирование не должно тормозить чтение из кэша: события доставляются в отдельном потоке
+        var asyncListener = new AsyncHwListener<>(listener, 1024, AsyncHwListener.OverflowPolicy.DROP);
+        clientCache.addListener(asyncListener);
 
         EntityClassMetaData<Client> entityClassMetaDataClient = new EntityClassMetaDataImpl<>(Client.class);
         EntitySQLMetaData entitySQLMetaDataClient = new EntitySQLMetaDataImpl(entityClassMetaDataClient);
         var dataTemplateClient = new DataTemplateJdbc<>(dbExecutor, entitySQLMetaDataClient, entityClassMetaDataClient);
 
+        // вытесненные из кучи клиенты хранятся вне кучи и возвращаются в кучу при обращении
+        var offHeapStore = new OffHeapStore<>(OFF_HEAP_CAPACITY_BYTES, new ClientCodec());
+        var tieredCache = new TieredHwCache<>(clientCache, offHeapStore);
+        var recordingCache = new RecordingHwCache<>(
+                "clients",
+                new LoadingHwCache<>(tieredCache, ABSENT_CLIENT_TTL),
+                clientCache::estimatedSize,
+                (Long id, Client client) -> CLIENT_ENTRY_OVERHEAD_BYTES
+                        + (client.getName() == null ? 0 : 2 * client.getName().length()));
+        recordingCache.registerMBean();
+
         var dbServiceClient = new DbServiceClientImpl(transactionRunner, dataTemplateClient);
-        var dbServiceCachedClient = new DbServiceCachedClientImpl(transactionRunner, dataTemplateClient, clientCache);
+        var dbServiceCachedClient = new DbServiceCachedClientImpl(
+                transactionRunner,
+                dataTemplateClient,
+                recordingCache,
+                null,
+                new QueryResultCache<>(QUERY_CACHE_MAXIMUM_SIZE, true));
 
         // 1. Сохраняем тестовые записи через реализацию без кэша
         int count = 50;
@@ -63,10 +101,9 @@ public class HomeWorkCache {
         }
         log.info("Saved {} clients", count);
 
-        // 2. Прогрев кэша — читаем все записи через кэшированный сервис
-        for (Long id : ids) {
-            dbServiceCachedClient.getClient(id); // первый вызов — идёт в БД и заполняет кэш
-        }
+        // 2. Прогрев кэша — все промахи читаются из БД одним запросом и заполняют кэш
+        var warmedUp = dbServiceCachedClient.getClients(ids.stream().mapToLong(Long::longValue).toArray());
+        log.info("Warmed up {} clients", warmedUp.size());
 
         // 3. Бенчмарк: чтение БЕЗ кэша
         long t1 = System.nanoTime();
@@ -85,7 +122,17 @@ public class HomeWorkCache {
         log.info("Cache (hit):   {} ms for {} reads", cacheTime / 1_000_000, count);
         log.info("Cache is ~{}x faster", dbTime / Math.max(cacheTime, 1));
 
-        // 5. Демонстрация сброса кэша при нехватке памяти
+        // 4a. findAll: без кэша каждый раз select, с кэшем - из памяти до ближайшей записи
+        dbServiceCachedClient.findAll();
+        long t4 = System.nanoTime();
+        dbServiceClient.findAll();
+        long dbFindAllTime = System.nanoTime() - t4;
+        long t5 = System.nanoTime();
+        dbServiceCachedClient.findAll();
+        long cachedFindAllTime = System.nanoTime() - t5;
+        log.info("findAll DB: {} us, cached: {} us", dbFindAllTime / 1_000, cachedFindAllTime / 1_000);
+
+        // 5. Кэш ограничен по размеру и не зависит от GC: нехватка памяти его не сбрасывает
         log.info("--- Simulating memory pressure ---");
         try {
             // создаём большой объём мусора, чтобы GC собрал слабые ссылки
@@ -94,18 +141,27 @@ public class HomeWorkCache {
                 memoryEater.add(new byte[1024 * 1024]); // 1 MB блоки
             }
         } catch (OutOfMemoryError e) {
-            log.info("OutOfMemoryError caught — GC should have cleared WeakHashMap");
+            log.info("OutOfMemoryError caught");
         }
         System.gc();
 
-        // 6. Проверяем, что кэш сброшен — чтение снова пойдёт в БД
+        // 6. Проверяем, что кэш сохранился — чтение по-прежнему не идёт в БД
         long t3 = System.nanoTime();
         for (Long id : ids) {
             dbServiceCachedClient.getClient(id);
         }
         long afterOOMTime = System.nanoTime() - t3;
-        log.info("Cache (after OOM): {} ms — cache was cleared, reads went to DB", afterOOMTime / 1_000_000);
+        log.info(
+                "Cache (after OOM): {} ms, cached entries: {}", afterOOMTime / 1_000_000, clientCache.estimatedSize());
+
+        log.info("{}", recordingCache.snapshot());
 
+        asyncListener.close();
+        offHeapStore.close();
+        log.info(
+                "Listener events delivered: {}, dropped: {}",
+                asyncListener.getDeliveredEvents(),
+                asyncListener.getDroppedEvents());
         log.info("Total time: {} ms", (System.nanoTime() - start) / 1_000_000);
     }
 
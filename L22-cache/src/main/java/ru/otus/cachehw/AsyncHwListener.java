@@ -0,0 +1,189 @@
+package ru.otus.cachehw;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Асинхронная обертка над слушателем кэша.
+ *
+ * <p>notify только кладет событие в ограниченный MPSC-буфер, а исходный слушатель вызывается пачками
+ * в отдельном потоке. Поэтому медленный слушатель не тормозит get/put кэша.
+ * Что делать при переполнении буфера, задает OverflowPolicy.
+ */
+public class AsyncHwListener<K, V> implements HwListener<K, V>, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AsyncHwListener.class);
+
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    public enum OverflowPolicy {
+        // отбросить событие
+        DROP,
+        // оставить только последнее событие по ключу
+        COALESCE,
+        // ждать, пока в буфере освободится место
+        BLOCK
+    }
+
+    private final HwListener<K, V> delegate;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final MpscRingBuffer<Event<K, V>> buffer;
+    private final Map<K, Event<K, V>> coalesced = new ConcurrentHashMap<>();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder coalescedEvents = new LongAdder();
+    private final LongAdder deliveredEvents = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private volatile boolean workerParked;
+
+    public AsyncHwListener(HwListener<K, V> delegate, int capacity, OverflowPolicy overflowPolicy) {
+        this(delegate, capacity, DEFAULT_BATCH_SIZE, overflowPolicy);
+    }
+
+    public AsyncHwListener(HwListener<K, V> delegate, int capacity, int batchSize, OverflowPolicy overflowPolicy) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.delegate = delegate;
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.buffer = new MpscRingBuffer<>(capacity);
+        this.worker = new Thread(this::deliverLoop, "hw-listener-" + delegate.getClass().getSimpleName());
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void notify(K key, V value, String action) {
+        if (!running) {
+            droppedEvents.increment();
+            return;
+        }
+        var event = new Event<>(key, value, action);
+        if (overflowPolicy == OverflowPolicy.COALESCE && !coalesced.isEmpty()) {
+            // пока есть отложенные события, новые тоже откладываем, чтобы не нарушить порядок по ключу
+            coalesce(event);
+            return;
+        }
+        while (!buffer.offer(event)) {
+            switch (overflowPolicy) {
+                case DROP -> {
+                    droppedEvents.increment();
+                    return;
+                }
+                case COALESCE -> {
+                    coalesce(event);
+                    return;
+                }
+                case BLOCK -> {
+                    if (!running) {
+                        droppedEvents.increment();
+                        return;
+                    }
+                    wakeUpWorker();
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                }
+            }
+        }
+        wakeUpWorker();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    public long getCoalescedEvents() {
+        return coalescedEvents.sum();
+    }
+
+    public long getDeliveredEvents() {
+        return deliveredEvents.sum();
+    }
+
+    /** Останавливает поток доставки, предварительно доставив все накопленные события */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void coalesce(Event<K, V> event) {
+        if (event.key() == null) {
+            droppedEvents.increment();
+            return;
+        }
+        if (coalesced.put(event.key(), event) != null) {
+            coalescedEvents.increment();
+        }
+        wakeUpWorker();
+    }
+
+    private void wakeUpWorker() {
+        if (workerParked) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void deliverLoop() {
+        var batch = new ArrayList<Event<K, V>>(batchSize);
+        while (running || !buffer.isEmpty() || !coalesced.isEmpty()) {
+            collectBatch(batch);
+            if (batch.isEmpty()) {
+                workerParked = true;
+                if (running && buffer.isEmpty() && coalesced.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                workerParked = false;
+                continue;
+            }
+            deliver(batch);
+            batch.clear();
+        }
+    }
+
+    private void collectBatch(List<Event<K, V>> batch) {
+        Event<K, V> event;
+        while (batch.size() < batchSize && (event = buffer.poll()) != null) {
+            batch.add(event);
+        }
+        // отложенные события новее всего, что уже лежит в буфере, поэтому идут после него
+        if (batch.isEmpty() && !coalesced.isEmpty()) {
+            for (var key : coalesced.keySet()) {
+                var coalescedEvent = coalesced.remove(key);
+                if (coalescedEvent != null) {
+                    batch.add(coalescedEvent);
+                }
+                if (batch.size() >= batchSize) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void deliver(List<Event<K, V>> batch) {
+        for (var event : batch) {
+            try {
+                delegate.notify(event.key(), event.value(), event.action());
+            } catch (RuntimeException e) {
+                log.error("listener error, key:{}, action:{}", event.key(), event.action(), e);
+            }
+        }
+        deliveredEvents.add(batch.size());
+    }
+
+    private record Event<K, V>(K key, V value, String action) {}
+}
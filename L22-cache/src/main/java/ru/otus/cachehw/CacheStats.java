@@ -0,0 +1,66 @@
+package ru.otus.cachehw;
+
+/**
+ * Неизменяемый снимок статистики кэша на момент вызова RecordingHwCache.snapshot().
+ *
+ * <p>loadLatencyHistogram[i] - число загрузок длительностью меньше 2^i микросекунд
+ * (и не меньше 2^(i-1)), последняя корзина - все, что дольше.
+ */
+public record CacheStats(
+        String name,
+        long hitCount,
+        long missCount,
+        long loadSuccessCount,
+        long loadFailureCount,
+        long totalLoadTimeNanos,
+        long evictionCount,
+        long expireCount,
+        long estimatedSize,
+        long estimatedMemoryBytes,
+        long[] loadLatencyHistogram) {
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    public double hitRate() {
+        long requestCount = requestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    public long loadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+
+    public double averageLoadPenaltyNanos() {
+        long loadCount = loadCount();
+        return loadCount == 0 ? 0.0 : (double) totalLoadTimeNanos / loadCount;
+    }
+
+    public long[] loadLatencyHistogram() {
+        return loadLatencyHistogram.clone();
+    }
+
+    /** Верхняя граница корзины гистограммы в микросекундах */
+    public static long bucketUpperBoundMicros(int bucket) {
+        return 1L << bucket;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "CacheStats{name=%s, hitRate=%.3f, hits=%d, misses=%d, loads=%d, loadFailures=%d,"
+                        + " avgLoadPenalty=%.1f us, evictions=%d, expirations=%d, size=%d, memory=%d bytes}",
+                name,
+                hitRate(),
+                hitCount,
+                missCount,
+                loadSuccessCount,
+                loadFailureCount,
+                averageLoadPenaltyNanos() / 1_000,
+                evictionCount,
+                expireCount,
+                estimatedSize,
+                estimatedMemoryBytes);
+    }
+}
@@ -0,0 +1,86 @@
+package ru.otus.cachehw;
+
+/**
+ * Count-Min Sketch с 4-битными счетчиками: приблизительная частота обращений к ключу.
+ * Периодически все счетчики делятся пополам, чтобы "старая" популярность затухала.
+ * Не потокобезопасен, доступ только под блокировкой владельца.
+ */
+final class FrequencySketch {
+    private static final long[] SEED = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private final long[] table;
+    private final int tableMask;
+    private final long sampleSize;
+    private long size;
+
+    FrequencySketch(long expectedSize) {
+        int capacity = (int) Math.max(8, Math.min(expectedSize, MAXIMUM_CAPACITY));
+        this.table = new long[ceilingPowerOfTwo(capacity)];
+        this.tableMask = table.length - 1;
+        this.sampleSize = 10L * capacity;
+    }
+
+    int frequency(int hashCode) {
+        int hash = spread(hashCode);
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (var idx = 0; idx < 4; idx++) {
+            int offset = (start + idx) << 2;
+            int count = (int) ((table[indexOf(hash, idx)] >>> offset) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(int hashCode) {
+        int hash = spread(hashCode);
+        int start = (hash & 3) << 2;
+        var added = false;
+        for (var idx = 0; idx < 4; idx++) {
+            added |= incrementAt(indexOf(hash, idx), start + idx);
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        var oddCount = 0;
+        for (var idx = 0; idx < table.length; idx++) {
+            oddCount += Long.bitCount(table[idx] & ONE_MASK);
+            table[idx] = (table[idx] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (oddCount >>> 2);
+    }
+
+    private int indexOf(int hash, int depth) {
+        long value = (hash + SEED[depth]) * SEED[depth];
+        value += value >>> 32;
+        return ((int) value) & tableMask;
+    }
+
+    private static int spread(int hashCode) {
+        int hash = ((hashCode >>> 16) ^ hashCode) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+
+    static int ceilingPowerOfTwo(int value) {
+        return 1 << -Integer.numberOfLeadingZeros(value - 1);
+    }
+}
@@ -1,5 +1,7 @@
 package ru.otus.cachehw;
 
+import java.util.function.Function;
+
 public interface HwCache<K, V> {
 
     void put(K key, V value);
@@ -8,6 +10,18 @@ public interface HwCache<K, V> {
 
     V get(K key);
 
+    /** Возвращает значение из кэша, а при промахе загружает его через loader и кладет в кэш */
+    default V get(K key, Function<? super K, ? extends V> loader) {
+        var value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
     void addListener(HwListener<K, V> listener);
 
     void removeListener(HwListener<K, V> listener);
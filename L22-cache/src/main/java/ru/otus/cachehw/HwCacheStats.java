@@ -0,0 +1,64 @@
+package ru.otus.cachehw;
+
+class HwCacheStats implements HwCacheStatsMXBean {
+    private final RecordingHwCache<?, ?> cache;
+
+    HwCacheStats(RecordingHwCache<?, ?> cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public long getHitCount() {
+        return cache.snapshot().hitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.snapshot().missCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        return cache.snapshot().hitRate();
+    }
+
+    @Override
+    public long getLoadSuccessCount() {
+        return cache.snapshot().loadSuccessCount();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return cache.snapshot().loadFailureCount();
+    }
+
+    @Override
+    public double getAverageLoadPenaltyMillis() {
+        return cache.snapshot().averageLoadPenaltyNanos() / 1_000_000;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.snapshot().evictionCount();
+    }
+
+    @Override
+    public long getExpireCount() {
+        return cache.snapshot().expireCount();
+    }
+
+    @Override
+    public long getEstimatedSize() {
+        return cache.snapshot().estimatedSize();
+    }
+
+    @Override
+    public long getEstimatedMemoryBytes() {
+        return cache.snapshot().estimatedMemoryBytes();
+    }
+
+    @Override
+    public long[] getLoadLatencyHistogramMicros() {
+        return cache.snapshot().loadLatencyHistogram();
+    }
+}
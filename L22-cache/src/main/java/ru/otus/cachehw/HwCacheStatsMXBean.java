@@ -0,0 +1,26 @@
+package ru.otus.cachehw;
+
+public interface HwCacheStatsMXBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getLoadSuccessCount();
+
+    long getLoadFailureCount();
+
+    double getAverageLoadPenaltyMillis();
+
+    long getEvictionCount();
+
+    long getExpireCount();
+
+    long getEstimatedSize();
+
+    long getEstimatedMemoryBytes();
+
+    long[] getLoadLatencyHistogramMicros();
+}
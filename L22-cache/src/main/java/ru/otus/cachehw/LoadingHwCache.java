@@ -0,0 +1,166 @@
+package ru.otus.cachehw;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Кэш с загрузкой при промахе (read-through) поверх любого HwCache.
+ *
+ * <p>Одновременные промахи по одному ключу объединяются: загрузку выполняет только первый поток,
+ * остальные ждут и получают тот же результат. Если loader вернул null, ключ запоминается
+ * как отсутствующий на negativeTtl, чтобы повторные запросы несуществующих id не шли в источник.
+ *
+ * <p>Если во время загрузки ключ был изменен через put или remove, загруженное значение
+ * отдается вызывающим, но в кэш не кладется: оно могло быть прочитано до записи и затерло бы новое.
+ */
+public class LoadingHwCache<K, V> implements HwCache<K, V> {
+    private static final int MAX_ABSENT_KEYS = 10_000;
+
+    private final HwCache<K, V> delegate;
+    private final long negativeTtlNanos;
+    private final Map<K, Load<V>> inFlight = new ConcurrentHashMap<>();
+    private final Map<K, Long> absentUntil = new ConcurrentHashMap<>();
+
+    public LoadingHwCache(HwCache<K, V> delegate) {
+        this(delegate, Duration.ZERO);
+    }
+
+    public LoadingHwCache(HwCache<K, V> delegate, Duration negativeTtl) {
+        if (negativeTtl.isNegative()) {
+            throw new IllegalArgumentException("negativeTtl is negative: " + negativeTtl);
+        }
+        this.delegate = delegate;
+        this.negativeTtlNanos = negativeTtl.toNanos();
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        return get(key, loader, () -> {});
+    }
+
+    /** То же, что get(key, loader), но вызывает onWait, если пришлось ждать загрузку из другого потока */
+    V get(K key, Function<? super K, ? extends V> loader, Runnable onWait) {
+        var value = delegate.get(key);
+        if (value != null || isKnownAbsent(key)) {
+            return value;
+        }
+
+        var loading = new Load<V>();
+        var existing = inFlight.putIfAbsent(key, loading);
+        if (existing != null) {
+            onWait.run();
+            return await(existing.result);
+        }
+        try {
+            V loaded = loader.apply(key);
+            synchronized (loading) {
+                if (!loading.superseded) {
+                    if (loaded != null) {
+                        delegate.put(key, loaded);
+                    } else {
+                        rememberAbsent(key);
+                    }
+                }
+            }
+            loading.result.complete(loaded);
+            return loaded;
+        } catch (Throwable e) {
+            // и Error, и скрыто брошенное checked-исключение: иначе ждущие в await() повисли бы навсегда
+            loading.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, loading);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        supersedeLoad(key);
+        absentUntil.remove(key);
+        delegate.put(key, value);
+    }
+
+    @Override
+    public void remove(K key) {
+        supersedeLoad(key);
+        absentUntil.remove(key);
+        delegate.remove(key);
+    }
+
+    @Override
+    public V get(K key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public void addListener(HwListener<K, V> listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(HwListener<K, V> listener) {
+        delegate.removeListener(listener);
+    }
+
+    /** Помечает идущую загрузку ключа устаревшей, чтобы ее результат не попал в кэш после этой записи */
+    private void supersedeLoad(K key) {
+        var loading = inFlight.get(key);
+        if (loading != null) {
+            synchronized (loading) {
+                loading.superseded = true;
+            }
+        }
+    }
+
+    private boolean isKnownAbsent(K key) {
+        if (negativeTtlNanos == 0) {
+            return false;
+        }
+        var deadline = absentUntil.get(key);
+        if (deadline == null) {
+            return false;
+        }
+        if (deadline - System.nanoTime() > 0) {
+            return true;
+        }
+        absentUntil.remove(key, deadline);
+        return false;
+    }
+
+    private void rememberAbsent(K key) {
+        if (negativeTtlNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (absentUntil.size() >= MAX_ABSENT_KEYS) {
+            absentUntil.values().removeIf(deadline -> deadline - now <= 0);
+            if (absentUntil.size() >= MAX_ABSENT_KEYS) {
+                absentUntil.clear();
+            }
+        }
+        absentUntil.put(key, now + negativeTtlNanos);
+    }
+
+    private V await(CompletableFuture<V> loading) {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Load<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private boolean superseded;
+    }
+}
@@ -0,0 +1,382 @@
+package ru.otus.cachehw;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Кэш с ключом-примитивом long: без упаковки ключа в Long и без объектов-записей на каждый элемент.
+ *
+ * <p>Данные разбиты на сегменты со своей блокировкой. Внутри сегмента - открытая адресация
+ * (линейное пробирование) по массиву long[] и массивы записей, связанные в очереди W-TinyLFU
+ * индексами int. Политика вытеснения и уведомления слушателей такие же, как у TinyLfuCache.
+ * Ключ упаковывается в Long только для слушателей, если они есть.
+ */
+public class LongKeyHwCache<V> {
+    private static final int MIN_SEGMENT_SIZE = 256;
+
+    private final Segment<V>[] segments;
+    private final int segmentShift;
+    private final List<HwListener<Long, V>> listeners = new CopyOnWriteArrayList<>();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private LongKeyHwCache(Builder<V> builder) {
+        long maxSegments = Math.max(1, builder.maximumSize / MIN_SEGMENT_SIZE);
+        int segmentCount = FrequencySketch.ceilingPowerOfTwo(
+                (int) Math.min(Runtime.getRuntime().availableProcessors(), maxSegments));
+        this.segments = new Segment[segmentCount];
+        int segmentMaximum = (int) ((builder.maximumSize + segmentCount - 1) / segmentCount);
+        for (var idx = 0; idx < segmentCount; idx++) {
+            segments[idx] = new Segment<>(segmentMaximum);
+        }
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+    }
+
+    public V get(long key) {
+        int hash = spread(key);
+        var segment = segmentFor(hash);
+        V value;
+        segment.lock.lock();
+        try {
+            value = segment.get(key, hash);
+        } finally {
+            segment.lock.unlock();
+        }
+        notifyListeners(key, value, "get");
+        return value;
+    }
+
+    public void put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value is null");
+        }
+        int hash = spread(key);
+        var segment = segmentFor(hash);
+        var evicted = false;
+        long evictedKey = 0;
+        V evictedValue = null;
+        segment.lock.lock();
+        try {
+            int victim = segment.put(key, hash, value);
+            if (victim >= 0) {
+                evicted = true;
+                evictedKey = segment.entryKeys[victim];
+                evictedValue = segment.valueAt(victim);
+                segment.release(victim);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        notifyListeners(key, value, "put");
+        if (evicted) {
+            notifyListeners(evictedKey, evictedValue, "evict");
+        }
+    }
+
+    public void remove(long key) {
+        int hash = spread(key);
+        var segment = segmentFor(hash);
+        V value;
+        segment.lock.lock();
+        try {
+            value = segment.remove(key, hash);
+        } finally {
+            segment.lock.unlock();
+        }
+        notifyListeners(key, value, "remove");
+    }
+
+    public void addListener(HwListener<Long, V> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(HwListener<Long, V> listener) {
+        listeners.remove(listener);
+    }
+
+    public long estimatedSize() {
+        long size = 0;
+        for (var segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    private void notifyListeners(long key, V value, String action) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Long boxedKey = key;
+        for (var listener : listeners) {
+            listener.notify(boxedKey, value, action);
+        }
+    }
+
+    private Segment<V> segmentFor(int hash) {
+        return segments.length == 1 ? segments[0] : segments[hash >>> segmentShift];
+    }
+
+    static int spread(long key) {
+        int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /** Сегмент кэша, все методы вызываются под его блокировкой */
+    static final class Segment<V> {
+        private static final byte FREE = 0;
+        private static final byte WINDOW = 1;
+        private static final byte PROBATION = 2;
+        private static final byte PROTECTED = 3;
+        private static final int NIL = -1;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final FrequencySketch sketch;
+        private final int maximumSize;
+        private final int windowMaximum;
+        private final int protectedMaximum;
+
+        // хеш-таблица: ключ и номер записи + 1 (0 - пустая ячейка)
+        private final long[] tableKeys;
+        private final int[] tableEntries;
+        private final int tableMask;
+
+        // записи, связанные в очереди политики
+        private final long[] entryKeys;
+        private final Object[] entryValues;
+        private final int[] prev;
+        private final int[] next;
+        private final byte[] queue;
+        private int freeHead;
+
+        private final int[] heads = {NIL, NIL, NIL, NIL};
+        private final int[] tails = {NIL, NIL, NIL, NIL};
+        private int windowSize;
+        private int protectedSize;
+        private int size;
+
+        Segment(int maximumSize) {
+            this.maximumSize = maximumSize;
+            this.windowMaximum = Math.max(1, maximumSize / 100);
+            this.protectedMaximum = (int) ((maximumSize - windowMaximum) * 0.8);
+            this.sketch = new FrequencySketch(maximumSize);
+
+            int tableSize = FrequencySketch.ceilingPowerOfTwo(Math.max(4, (maximumSize + 1) * 2));
+            this.tableKeys = new long[tableSize];
+            this.tableEntries = new int[tableSize];
+            this.tableMask = tableSize - 1;
+
+            // одна запасная запись: новая запись добавляется до вытеснения
+            int entriesSize = maximumSize + 1;
+            this.entryKeys = new long[entriesSize];
+            this.entryValues = new Object[entriesSize];
+            this.prev = new int[entriesSize];
+            this.next = new int[entriesSize];
+            this.queue = new byte[entriesSize];
+            for (var idx = 0; idx < entriesSize; idx++) {
+                next[idx] = idx + 1 < entriesSize ? idx + 1 : NIL;
+            }
+            this.freeHead = 0;
+        }
+
+        V get(long key, int hash) {
+            int slot = findSlot(key, hash);
+            if (slot < 0) {
+                return null;
+            }
+            int entry = tableEntries[slot] - 1;
+            onAccess(entry);
+            return valueAt(entry);
+        }
+
+        /** @return номер вытесненной записи (ее надо освободить через release) или -1 */
+        int put(long key, int hash, V value) {
+            int slot = findSlot(key, hash);
+            if (slot >= 0) {
+                int entry = tableEntries[slot] - 1;
+                entryValues[entry] = value;
+                onAccess(entry);
+                return NIL;
+            }
+            int entry = freeHead;
+            freeHead = next[entry];
+            entryKeys[entry] = key;
+            entryValues[entry] = value;
+            insertSlot(key, hash, entry);
+            sketch.increment(hash);
+            linkLast(WINDOW, entry);
+            windowSize++;
+            size++;
+            return evict();
+        }
+
+        V remove(long key, int hash) {
+            int slot = findSlot(key, hash);
+            if (slot < 0) {
+                return null;
+            }
+            int entry = tableEntries[slot] - 1;
+            V value = valueAt(entry);
+            deleteSlot(slot);
+            unlinkEntry(entry);
+            release(entry);
+            return value;
+        }
+
+        void release(int entry) {
+            entryValues[entry] = null;
+            queue[entry] = FREE;
+            next[entry] = freeHead;
+            freeHead = entry;
+        }
+
+        @SuppressWarnings("unchecked")
+        V valueAt(int entry) {
+            return (V) entryValues[entry];
+        }
+
+        private void onAccess(int entry) {
+            sketch.increment(spread(entryKeys[entry]));
+            switch (queue[entry]) {
+                case WINDOW -> moveToBack(WINDOW, entry);
+                case PROBATION -> {
+                    unlink(PROBATION, entry);
+                    linkLast(PROTECTED, entry);
+                    protectedSize++;
+                    while (protectedSize > protectedMaximum && heads[PROTECTED] != NIL) {
+                        int demoted = heads[PROTECTED];
+                        unlink(PROTECTED, demoted);
+                        protectedSize--;
+                        linkLast(PROBATION, demoted);
+                    }
+                }
+                default -> moveToBack(PROTECTED, entry);
+            }
+        }
+
+        private int evict() {
+            int candidate = NIL;
+            while (windowSize > windowMaximum) {
+                int moved = heads[WINDOW];
+                unlink(WINDOW, moved);
+                windowSize--;
+                linkLast(PROBATION, moved);
+                if (candidate == NIL) {
+                    candidate = moved;
+                }
+            }
+            if (size <= maximumSize) {
+                return NIL;
+            }
+
+            int victim = heads[PROBATION];
+            int evicted;
+            if (victim == NIL) {
+                evicted = heads[PROTECTED] != NIL ? heads[PROTECTED] : heads[WINDOW];
+            } else if (candidate == NIL || candidate == victim) {
+                evicted = victim;
+            } else {
+                int candidateFrequency = sketch.frequency(spread(entryKeys[candidate]));
+                int victimFrequency = sketch.frequency(spread(entryKeys[victim]));
+                evicted = candidateFrequency > victimFrequency ? victim : candidate;
+            }
+            deleteSlot(findSlot(entryKeys[evicted], spread(entryKeys[evicted])));
+            unlinkEntry(evicted);
+            return evicted;
+        }
+
+        private void unlinkEntry(int entry) {
+            byte entryQueue = queue[entry];
+            unlink(entryQueue, entry);
+            if (entryQueue == WINDOW) {
+                windowSize--;
+            } else if (entryQueue == PROTECTED) {
+                protectedSize--;
+            }
+            size--;
+        }
+
+        private int findSlot(long key, int hash) {
+            int slot = hash & tableMask;
+            while (tableEntries[slot] != 0) {
+                if (tableKeys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & tableMask;
+            }
+            return NIL;
+        }
+
+        private void insertSlot(long key, int hash, int entry) {
+            int slot = hash & tableMask;
+            while (tableEntries[slot] != 0) {
+                slot = (slot + 1) & tableMask;
+            }
+            tableKeys[slot] = key;
+            tableEntries[slot] = entry + 1;
+        }
+
+        /** Удаление со сдвигом назад, чтобы не оставлять "надгробий" в цепочке пробирования */
+        private void deleteSlot(int slot) {
+            int gap = slot;
+            int idx = (gap + 1) & tableMask;
+            while (tableEntries[idx] != 0) {
+                int home = spread(tableKeys[idx]) & tableMask;
+                if (((idx - home) & tableMask) >= ((idx - gap) & tableMask)) {
+                    tableKeys[gap] = tableKeys[idx];
+                    tableEntries[gap] = tableEntries[idx];
+                    gap = idx;
+                }
+                idx = (idx + 1) & tableMask;
+            }
+            tableEntries[gap] = 0;
+        }
+
+        private void linkLast(byte target, int entry) {
+            queue[entry] = target;
+            prev[entry] = tails[target];
+            next[entry] = NIL;
+            if (tails[target] == NIL) {
+                heads[target] = entry;
+            } else {
+                next[tails[target]] = entry;
+            }
+            tails[target] = entry;
+        }
+
+        private void unlink(byte source, int entry) {
+            if (prev[entry] == NIL) {
+                heads[source] = next[entry];
+            } else {
+                next[prev[entry]] = next[entry];
+            }
+            if (next[entry] == NIL) {
+                tails[source] = prev[entry];
+            } else {
+                prev[next[entry]] = prev[entry];
+            }
+        }
+
+        private void moveToBack(byte target, int entry) {
+            if (tails[target] != entry) {
+                unlink(target, entry);
+                linkLast(target, entry);
+            }
+        }
+    }
+
+    public static class Builder<V> {
+        private long maximumSize = -1;
+
+        public Builder<V> maximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public LongKeyHwCache<V> build() {
+            if (maximumSize <= 0) {
+                throw new IllegalStateException("maximumSize must be positive");
+            }
+            return new LongKeyHwCache<>(this);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.otus.cachehw;
+
+/** Позволяет использовать LongKeyHwCache там, где ожидается HwCache с ключом Long */
+public class LongKeyHwCacheAdapter<V> implements HwCache<Long, V> {
+
+    private final LongKeyHwCache<V> cache;
+
+    public LongKeyHwCacheAdapter(LongKeyHwCache<V> cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void put(Long key, V value) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public void remove(Long key) {
+        cache.remove(key);
+    }
+
+    @Override
+    public V get(Long key) {
+        return cache.get(key);
+    }
+
+    @Override
+    public void addListener(HwListener<Long, V> listener) {
+        cache.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(HwListener<Long, V> listener) {
+        cache.removeListener(listener);
+    }
+
+    public LongKeyHwCache<V> unwrap() {
+        return cache;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.otus.cachehw;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** Ограниченный кольцевой буфер: много писателей (CAS по индексу), один читатель */
+final class MpscRingBuffer<E> {
+    private final AtomicReferenceArray<E> buffer;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    MpscRingBuffer(int capacity) {
+        int size = FrequencySketch.ceilingPowerOfTwo(Math.max(2, capacity));
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    boolean offer(E element) {
+        while (true) {
+            long producer = producerIndex.get();
+            if (producer - consumerIndex.get() >= buffer.length()) {
+                return false;
+            }
+            if (producerIndex.compareAndSet(producer, producer + 1)) {
+                buffer.lazySet((int) (producer & mask), element);
+                return true;
+            }
+        }
+    }
+
+    /** Только для потока-читателя */
+    E poll() {
+        long consumer = consumerIndex.get();
+        int index = (int) (consumer & mask);
+        var element = buffer.get(index);
+        if (element == null) {
+            // буфер пуст или писатель еще не опубликовал значение
+            return null;
+        }
+        buffer.lazySet(index, null);
+        consumerIndex.lazySet(consumer + 1);
+        return element;
+    }
+
+    boolean isEmpty() {
+        return consumerIndex.get() >= producerIndex.get();
+    }
+}
@@ -0,0 +1,325 @@
+package ru.otus.cachehw;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Хранилище значений по long-ключу вне кучи: в файле, отображенном в память (memory-mapped).
+ *
+ * <p>Записи [длина][ключ][срок][байты значения] пишутся подряд по кругу (кольцевой лог). Когда места
+ * не хватает, затираются самые старые записи, поэтому объем ограничен capacityBytes, а GC видит
+ * только индекс: два примитивных массива с открытой адресацией (ключ -> смещение записи).
+ *
+ * <p>Срок - значение System.nanoTime(), после которого запись не возвращается и удаляется при чтении.
+ */
+public class OffHeapStore<V> implements AutoCloseable {
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private static final int KEY_OFFSET = Integer.BYTES;
+    private static final int EXPIRES_AT_OFFSET = KEY_OFFSET + Long.BYTES;
+    private static final int HEADER_BYTES = EXPIRES_AT_OFFSET + Long.BYTES;
+    private static final int WRAP_MARKER = -1;
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+    private final ValueCodec<V> codec;
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Index index = new Index(INITIAL_INDEX_CAPACITY);
+
+    // самая старая запись, место для следующей записи и занятый объем между ними
+    private int head;
+    private int tail;
+    private int used;
+
+    /** Хранилище во временном файле, файл удаляется при close() */
+    public OffHeapStore(int capacityBytes, ValueCodec<V> codec) {
+        this(createTempFile(), capacityBytes, codec);
+    }
+
+    public OffHeapStore(Path file, int capacityBytes, ValueCodec<V> codec) {
+        if (capacityBytes < HEADER_BYTES) {
+            throw new IllegalArgumentException("capacityBytes is too small: " + capacityBytes);
+        }
+        this.codec = codec;
+        this.file = file;
+        this.capacity = capacityBytes;
+        try {
+            this.channel = FileChannel.open(
+                    file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not map file " + file, e);
+        }
+    }
+
+    /** @return false, если значение не помещается в хранилище целиком */
+    public boolean put(long key, V value) {
+        return put(key, value, NO_EXPIRY);
+    }
+
+    /** expiresAtNanos - срок по System.nanoTime() или NO_EXPIRY */
+    public boolean put(long key, V value, long expiresAtNanos) {
+        var bytes = codec.encode(value);
+        int recordSize = HEADER_BYTES + bytes.length;
+        if (recordSize > capacity) {
+            return false;
+        }
+        lock.lock();
+        try {
+            // старая запись по ключу остается в логе мусором до тех пор, пока ее не затрут
+            index.remove(key);
+            int offset = allocate(recordSize);
+            buffer.putInt(offset, bytes.length);
+            buffer.putLong(offset + KEY_OFFSET, key);
+            buffer.putLong(offset + EXPIRES_AT_OFFSET, expiresAtNanos);
+            buffer.put(offset + HEADER_BYTES, bytes);
+            index.put(key, offset);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V get(long key) {
+        var entry = read(key, false);
+        return entry == null ? null : entry.value();
+    }
+
+    /** Возвращает значение и сразу удаляет его из хранилища */
+    public V take(long key) {
+        var entry = read(key, true);
+        return entry == null ? null : entry.value();
+    }
+
+    /** Как take, но вместе со сроком записи: при переносе обратно в кучу срок не должен продлеваться */
+    public Entry<V> takeEntry(long key) {
+        return read(key, true);
+    }
+
+    public void remove(long key) {
+        lock.lock();
+        try {
+            index.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return index.size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Занятый объем лога, включая еще не затертые устаревшие записи */
+    public int usedBytes() {
+        lock.lock();
+        try {
+            return used;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Закрывает и удаляет файл; отображенная память освобождается, когда буфер соберет GC */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            index.clear();
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not close file " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry<V> read(long key, boolean remove) {
+        byte[] bytes;
+        long expiresAtNanos;
+        lock.lock();
+        try {
+            int offset = index.get(key);
+            if (offset < 0) {
+                return null;
+            }
+            expiresAtNanos = buffer.getLong(offset + EXPIRES_AT_OFFSET);
+            if (isExpired(expiresAtNanos)) {
+                index.remove(key);
+                return null;
+            }
+            bytes = new byte[buffer.getInt(offset)];
+            buffer.get(offset + HEADER_BYTES, bytes);
+            if (remove) {
+                index.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new Entry<>(codec.decode(bytes), expiresAtNanos);
+    }
+
+    private static boolean isExpired(long expiresAtNanos) {
+        return expiresAtNanos != NO_EXPIRY && System.nanoTime() - expiresAtNanos >= 0;
+    }
+
+    private int allocate(int recordSize) {
+        if (capacity - tail < recordSize) {
+            // запись не помещается до конца файла: хвост пропускаем и продолжаем с начала
+            int waste = capacity - tail;
+            ensureFree(waste);
+            if (waste >= Integer.BYTES) {
+                buffer.putInt(tail, WRAP_MARKER);
+            }
+            used += waste;
+            tail = 0;
+        }
+        ensureFree(recordSize);
+        int offset = tail;
+        tail += recordSize;
+        used += recordSize;
+        if (tail == capacity) {
+            tail = 0;
+        }
+        return offset;
+    }
+
+    /** Свободное место непрерывно идет от tail до head, поэтому достаточно затирать записи с головы */
+    private void ensureFree(int bytes) {
+        while (capacity - used < bytes) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        if (capacity - head < HEADER_BYTES || buffer.getInt(head) == WRAP_MARKER) {
+            used -= capacity - head;
+            head = 0;
+            return;
+        }
+        int recordSize = HEADER_BYTES + buffer.getInt(head);
+        long key = buffer.getLong(head + KEY_OFFSET);
+        if (index.get(key) == head) {
+            index.remove(key);
+        }
+        head += recordSize;
+        used -= recordSize;
+        if (head == capacity) {
+            head = 0;
+        }
+    }
+
+    private static Path createTempFile() {
+        try {
+            var tempFile = Files.createTempFile("hwcache-", ".bin");
+            tempFile.toFile().deleteOnExit();
+            return tempFile;
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not create temp file", e);
+        }
+    }
+
+    /** Значение и его срок по System.nanoTime() (NO_EXPIRY - без срока) */
+    public record Entry<V>(V value, long expiresAtNanos) {}
+
+    /** Открытая адресация с линейным пробированием; в offsets хранится смещение + 1, 0 - пустая ячейка */
+    private static final class Index {
+        private long[] keys;
+        private int[] offsets;
+        private int mask;
+        private int size;
+
+        Index(int capacity) {
+            allocate(capacity);
+        }
+
+        int get(long key) {
+            for (int slot = slot(key); offsets[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return offsets[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int offset) {
+            if (size >= (offsets.length >> 1)) {
+                resize();
+            }
+            int slot = slot(key);
+            while (offsets[slot] != 0) {
+                if (keys[slot] == key) {
+                    offsets[slot] = offset + 1;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            offsets[slot] = offset + 1;
+            size++;
+        }
+
+        void remove(long key) {
+            int slot = slot(key);
+            while (offsets[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (offsets[slot] == 0) {
+                return;
+            }
+            // сдвигаем следующие записи цепочки назад, чтобы не оставлять "надгробий"
+            int hole = slot;
+            for (int next = (hole + 1) & mask; offsets[next] != 0; next = (next + 1) & mask) {
+                int home = slot(keys[next]);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    offsets[hole] = offsets[next];
+                    hole = next;
+                }
+            }
+            offsets[hole] = 0;
+            size--;
+        }
+
+        void clear() {
+            allocate(INITIAL_INDEX_CAPACITY);
+        }
+
+        private void resize() {
+            var oldKeys = keys;
+            var oldOffsets = offsets;
+            allocate(oldOffsets.length << 1);
+            for (var idx = 0; idx < oldOffsets.length; idx++) {
+                if (oldOffsets[idx] != 0) {
+                    put(oldKeys[idx], oldOffsets[idx] - 1);
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            offsets = new int[capacity];
+            mask = capacity - 1;
+            size = 0;
+        }
+
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
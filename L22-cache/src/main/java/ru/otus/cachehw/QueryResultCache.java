@@ -0,0 +1,103 @@
+package ru.otus.cachehw;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Кэш результатов списочных запросов: ключ - текст запроса и параметры.
+ *
+ * <p>Каждый результат помечается версией данных на момент загрузки. Любая запись вызывает
+ * invalidate(), версия растет, и все сохраненные результаты считаются устаревшими.
+ * В режиме idSnapshots хранятся только id, а объекты берутся через resolver (обычно поштучный кэш).
+ */
+public class QueryResultCache<V> {
+
+    private final AtomicLong version = new AtomicLong();
+    private final TinyLfuCache<QueryKey, Result<V>> results;
+    private final boolean idSnapshots;
+
+    public QueryResultCache(long maximumQueries, boolean idSnapshots) {
+        this.results = new TinyLfuCache.Builder<QueryKey, Result<V>>()
+                .maximumSize(maximumQueries)
+                .build();
+        this.idSnapshots = idSnapshots;
+    }
+
+    public List<V> get(
+            String query,
+            List<Object> params,
+            Supplier<List<V>> loader,
+            ToLongFunction<V> idExtractor,
+            LongFunction<V> resolver) {
+        var key = new QueryKey(query, Collections.unmodifiableList(new ArrayList<>(params)));
+        var cached = results.get(key);
+        if (cached != null && cached.version() == version.get()) {
+            var resolved = cached.resolve(resolver);
+            if (resolved != null) {
+                return resolved;
+            }
+        }
+
+        // версию фиксируем до загрузки: если во время загрузки была запись, результат сразу устареет
+        long loadVersion = version.get();
+        var loaded = List.copyOf(loader.get());
+        if (idSnapshots) {
+            results.put(key, Result.ofIds(loadVersion, loaded, idExtractor));
+        } else {
+            results.put(key, Result.ofValues(loadVersion, loaded));
+        }
+        return loaded;
+    }
+
+    /** Вызывается после каждой записи в данные, на которых построены запросы */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    /** true - хранятся только id, и resolver должен находить объекты сам (например, в поштучном кэше) */
+    public boolean isIdSnapshots() {
+        return idSnapshots;
+    }
+
+    public record QueryKey(String query, List<Object> params) {}
+
+    private record Result<V>(long version, List<V> values, long[] ids) {
+
+        static <V> Result<V> ofValues(long version, List<V> values) {
+            return new Result<>(version, values, null);
+        }
+
+        static <V> Result<V> ofIds(long version, List<V> values, ToLongFunction<V> idExtractor) {
+            var ids = new long[values.size()];
+            for (var idx = 0; idx < ids.length; idx++) {
+                ids[idx] = idExtractor.applyAsLong(values.get(idx));
+            }
+            return new Result<>(version, null, ids);
+        }
+
+        /** @return null, если какой-то id уже не находится и результат надо перечитать */
+        List<V> resolve(LongFunction<V> resolver) {
+            if (ids == null) {
+                return values;
+            }
+            var resolved = new ArrayList<V>(ids.length);
+            for (var id : ids) {
+                var value = resolver.apply(id);
+                if (value == null) {
+                    return null;
+                }
+                resolved.add(value);
+            }
+            return resolved;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.otus.cachehw;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Полосатый (striped) буфер с потерями для записи фактов чтения.
+ * Читатели не берут блокировку: при переполнении полосы событие просто теряется,
+ * а разбор буфера выполняет тот, кто владеет блокировкой политики вытеснения.
+ */
+final class ReadBuffer<E> {
+    private static final int STRIPE_SIZE = 16;
+    private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+    private final Stripe<E>[] stripes;
+    private final int stripesMask;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ReadBuffer() {
+        int count = FrequencySketch.ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors());
+        this.stripes = new Stripe[count];
+        for (var idx = 0; idx < count; idx++) {
+            stripes[idx] = new Stripe<>();
+        }
+        this.stripesMask = count - 1;
+    }
+
+    /** @return true, если полоса заполнена и буфер пора разобрать */
+    boolean offer(E element) {
+        var stripe = stripes[stripeIndex()];
+        long head = stripe.readCounter.get();
+        long tail = stripe.writeCounter.get();
+        long size = tail - head;
+        if (size >= STRIPE_SIZE) {
+            return true;
+        }
+        if (stripe.writeCounter.compareAndSet(tail, tail + 1)) {
+            stripe.buffer.lazySet((int) (tail & STRIPE_MASK), element);
+            return size + 1 >= STRIPE_SIZE;
+        }
+        return false;
+    }
+
+    /** Вызывается только под блокировкой владельца */
+    void drainTo(Consumer<E> consumer) {
+        for (var stripe : stripes) {
+            long head = stripe.readCounter.get();
+            long tail = stripe.writeCounter.get();
+            for (; head < tail; head++) {
+                int index = (int) (head & STRIPE_MASK);
+                var element = stripe.buffer.get(index);
+                if (element == null) {
+                    // писатель занял слот, но еще не успел опубликовать значение
+                    break;
+                }
+                stripe.buffer.lazySet(index, null);
+                consumer.accept(element);
+            }
+            stripe.readCounter.lazySet(head);
+        }
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().threadId();
+        return (int) (id ^ (id >>> 16)) & stripesMask;
+    }
+
+    private static final class Stripe<E> {
+        private final AtomicLong readCounter = new AtomicLong();
+        private final AtomicLong writeCounter = new AtomicLong();
+        private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(STRIPE_SIZE);
+    }
+}
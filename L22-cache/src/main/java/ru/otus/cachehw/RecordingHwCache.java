@@ -0,0 +1,190 @@
+package ru.otus.cachehw;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Обертка над любым HwCache, которая считает статистику: попадания, промахи, загрузки и их время,
+ * вытеснения и истечения. Статистика доступна через snapshot() и как MXBean (registerMBean).
+ * Перенос записи во второй уровень TieredHwCache (событие "demote") вытеснением не считается.
+ *
+ * <p>Размер кэша берется из sizeSupplier, если реализация его знает. Объем памяти оценивается как
+ * размер, умноженный на средний вес записи по entryBytes, посчитанный на всех put и загрузках.
+ */
+public class RecordingHwCache<K, V> implements HwCache<K, V> {
+    private static final int HISTOGRAM_BUCKETS = 32;
+
+    private final String name;
+    private final HwCache<K, V> delegate;
+    private final LongSupplier sizeSupplier;
+    private final Weigher<? super K, ? super V> entryBytes;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTimeNanos = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expireCount = new LongAdder();
+    private final LongAdder sampledEntries = new LongAdder();
+    private final LongAdder sampledBytes = new LongAdder();
+    private final LongAdder[] loadLatencyHistogram = new LongAdder[HISTOGRAM_BUCKETS];
+    private ObjectName objectName;
+
+    public RecordingHwCache(String name, HwCache<K, V> delegate) {
+        this(name, delegate, () -> -1, null);
+    }
+
+    /** sizeSupplier и entryBytes нужны для оценки размера и памяти, без них там будет -1 */
+    public RecordingHwCache(
+            String name, HwCache<K, V> delegate, LongSupplier sizeSupplier, Weigher<? super K, ? super V> entryBytes) {
+        this.name = name;
+        this.delegate = delegate;
+        this.sizeSupplier = sizeSupplier;
+        this.entryBytes = entryBytes;
+        for (var idx = 0; idx < loadLatencyHistogram.length; idx++) {
+            loadLatencyHistogram[idx] = new LongAdder();
+        }
+        delegate.addListener((key, value, action) -> {
+            switch (action) {
+                case "evict" -> evictionCount.increment();
+                case "expire" -> expireCount.increment();
+                default -> {
+                    // остальные события считаются в самих методах
+                }
+            }
+        });
+    }
+
+    @Override
+    public void put(K key, V value) {
+        sampleEntry(key, value);
+        delegate.put(key, value);
+    }
+
+    @Override
+    public void remove(K key) {
+        delegate.remove(key);
+    }
+
+    @Override
+    public V get(K key) {
+        var value = delegate.get(key);
+        if (value != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        var loaded = new boolean[1];
+        var waited = new boolean[1];
+        Function<K, V> recordingLoader = k -> {
+            loaded[0] = true;
+            return load(k, loader);
+        };
+        V value = null;
+        try {
+            // дождавшийся чужой загрузки тоже промахнулся, хотя его loader и не вызывался
+            value = delegate instanceof LoadingHwCache<K, V> loadingCache
+                    ? loadingCache.get(key, recordingLoader, () -> waited[0] = true)
+                    : delegate.get(key, recordingLoader);
+            return value;
+        } finally {
+            if (loaded[0] || waited[0] || value == null) {
+                missCount.increment();
+            } else {
+                hitCount.increment();
+            }
+        }
+    }
+
+    @Override
+    public void addListener(HwListener<K, V> listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(HwListener<K, V> listener) {
+        delegate.removeListener(listener);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CacheStats snapshot() {
+        long size = sizeSupplier.getAsLong();
+        long entries = sampledEntries.sum();
+        long memory = size < 0 || entries == 0 ? -1 : size * (sampledBytes.sum() / entries);
+        var histogram = new long[loadLatencyHistogram.length];
+        for (var idx = 0; idx < histogram.length; idx++) {
+            histogram[idx] = loadLatencyHistogram[idx].sum();
+        }
+        return new CacheStats(
+                name,
+                hitCount.sum(),
+                missCount.sum(),
+                loadSuccessCount.sum(),
+                loadFailureCount.sum(),
+                totalLoadTimeNanos.sum(),
+                evictionCount.sum(),
+                expireCount.sum(),
+                size,
+                memory,
+                histogram);
+    }
+
+    /** Регистрирует статистику в platform MBeanServer как ru.otus:type=HwCache,name=[name] */
+    public synchronized void registerMBean() throws JMException {
+        var mbs = ManagementFactory.getPlatformMBeanServer();
+        var newObjectName = new ObjectName("ru.otus:type=HwCache,name=" + ObjectName.quote(name));
+        mbs.registerMBean(new HwCacheStats(this), newObjectName);
+        objectName = newObjectName;
+    }
+
+    public synchronized void unregisterMBean() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    private V load(K key, Function<? super K, ? extends V> loader) {
+        long start = System.nanoTime();
+        try {
+            V value = loader.apply(key);
+            loadSuccessCount.increment();
+            if (value != null) {
+                sampleEntry(key, value);
+            }
+            return value;
+        } catch (RuntimeException e) {
+            loadFailureCount.increment();
+            throw e;
+        } finally {
+            recordLoadTime(System.nanoTime() - start);
+        }
+    }
+
+    private void sampleEntry(K key, V value) {
+        if (entryBytes != null) {
+            sampledEntries.increment();
+            sampledBytes.add(entryBytes.weigh(key, value));
+        }
+    }
+
+    private void recordLoadTime(long nanos) {
+        totalLoadTimeNanos.add(nanos);
+        long micros = nanos / 1_000;
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), HISTOGRAM_BUCKETS - 1);
+        loadLatencyHistogram[bucket].increment();
+    }
+}
@@ -0,0 +1,94 @@
+package ru.otus.cachehw;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Двухуровневый кэш: небольшой TinyLfuCache в куче и OffHeapStore вне кучи.
+ *
+ * <p>Вытесненные из кучи записи сериализуются во второй уровень, а при обращении переносятся обратно.
+ * Так рабочий набор может быть намного больше кучи, а размер кучи и паузы GC не растут.
+ * Истекшие записи во второй уровень не попадают: они устарели. Срок expireAfterWrite уходит во второй
+ * уровень вместе с записью и при переносе обратно не продлевается.
+ * О переносе во второй уровень слушатели получают событие "demote", а не "evict".
+ */
+public class TieredHwCache<V> implements HwCache<Long, V> {
+    private final TinyLfuCache<Long, V> heap;
+    private final OffHeapStore<V> offHeap;
+    // изменения обоих уровней по очереди, иначе запоздалый перенос вытесненной записи вернул бы старое значение
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public TieredHwCache(TinyLfuCache<Long, V> heap, OffHeapStore<V> offHeap) {
+        this.heap = heap;
+        this.offHeap = offHeap;
+        heap.setEvictionSink(
+                (key, value, writeDeadlineNanos) -> offHeap.put(key, value, offHeapExpiry(writeDeadlineNanos)));
+    }
+
+    @Override
+    public void put(Long key, V value) {
+        writeLock.lock();
+        try {
+            offHeap.remove(key);
+            heap.put(key, value);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long key) {
+        writeLock.lock();
+        try {
+            heap.remove(key);
+            offHeap.remove(key);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public V get(Long key) {
+        var value = heap.get(key);
+        if (value != null) {
+            return value;
+        }
+        writeLock.lock();
+        try {
+            // пока ждали блокировку, параллельный put мог положить запись в кучу и убрать ее из второго уровня
+            value = heap.get(key);
+            if (value != null) {
+                return value;
+            }
+            var entry = offHeap.takeEntry(key);
+            if (entry == null) {
+                return null;
+            }
+            heap.putWithWriteDeadline(key, entry.value(), heapDeadline(entry.expiresAtNanos()));
+            return entry.value();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addListener(HwListener<Long, V> listener) {
+        heap.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(HwListener<Long, V> listener) {
+        heap.removeListener(listener);
+    }
+
+    private static long offHeapExpiry(long writeDeadlineNanos) {
+        return writeDeadlineNanos == TinyLfuCache.NO_DEADLINE ? OffHeapStore.NO_EXPIRY : writeDeadlineNanos;
+    }
+
+    private static long heapDeadline(long expiresAtNanos) {
+        return expiresAtNanos == OffHeapStore.NO_EXPIRY ? TinyLfuCache.NO_DEADLINE : expiresAtNanos;
+    }
+
+    public long estimatedSize() {
+        return heap.estimatedSize() + offHeap.size();
+    }
+}
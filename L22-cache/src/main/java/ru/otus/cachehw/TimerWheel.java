@@ -0,0 +1,130 @@
+package ru.otus.cachehw;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Иерархическое колесо таймеров для истечения записей TinyLfuCache.
+ *
+ * <p>Каждый уровень - массив корзин, корзина покрывает интервал времени, длина которого - степень двойки
+ * (около секунды, минуты, часа, дня). Запись кладется в корзину по своему сроку за O(1),
+ * при сдвиге времени просматриваются только прошедшие корзины. Записи из крупных корзин,
+ * срок которых еще не наступил, перекладываются на более точный уровень.
+ * Не потокобезопасно, доступ только под блокировкой владельца.
+ */
+final class TimerWheel<K, V> {
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final long[] SPANS = {
+        ceilingPowerOfTwo(TimeUnit.SECONDS.toNanos(1)), // 1.07 с
+        ceilingPowerOfTwo(TimeUnit.MINUTES.toNanos(1)), // 1.14 мин
+        ceilingPowerOfTwo(TimeUnit.HOURS.toNanos(1)), // 1.22 ч
+        ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)), // 1.63 дн
+        BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)), // 6.5 дн
+        BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+    };
+    private static final int[] SHIFT = {
+        Long.numberOfTrailingZeros(SPANS[0]),
+        Long.numberOfTrailingZeros(SPANS[1]),
+        Long.numberOfTrailingZeros(SPANS[2]),
+        Long.numberOfTrailingZeros(SPANS[3]),
+        Long.numberOfTrailingZeros(SPANS[4]),
+    };
+
+    private final TinyLfuCache.Node<K, V>[][] wheel;
+    private long nanos;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimerWheel() {
+        wheel = new TinyLfuCache.Node[BUCKETS.length][];
+        for (var level = 0; level < wheel.length; level++) {
+            wheel[level] = new TinyLfuCache.Node[BUCKETS[level]];
+            for (var idx = 0; idx < wheel[level].length; idx++) {
+                var sentinel = new TinyLfuCache.Node<K, V>(null, null, 0);
+                sentinel.timerPrev = sentinel;
+                sentinel.timerNext = sentinel;
+                wheel[level][idx] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Сдвигает колесо к currentTime. Все записи из прошедших корзин снимаются с колеса и передаются
+     * в consumer: он либо удаляет истекшую запись, либо заново планирует ее через schedule.
+     */
+    void advance(long currentTime, Consumer<TinyLfuCache.Node<K, V>> consumer) {
+        long previousTime = nanos;
+        nanos = currentTime;
+        for (var level = 0; level < SHIFT.length; level++) {
+            long previousTicks = previousTime >>> SHIFT[level];
+            long currentTicks = currentTime >>> SHIFT[level];
+            if (currentTicks - previousTicks <= 0) {
+                break;
+            }
+            expire(level, previousTicks, currentTicks - previousTicks, consumer);
+        }
+    }
+
+    void schedule(TinyLfuCache.Node<K, V> node, long time) {
+        if (node.timerNext != null) {
+            unlink(node);
+        }
+        link(findBucket(Math.max(time, nanos)), node);
+    }
+
+    void deschedule(TinyLfuCache.Node<K, V> node) {
+        if (node.timerNext != null) {
+            unlink(node);
+        }
+    }
+
+    private void expire(int level, long previousTicks, long delta, Consumer<TinyLfuCache.Node<K, V>> consumer) {
+        var buckets = wheel[level];
+        int mask = buckets.length - 1;
+        // корзину текущего тика тоже надо просмотреть: в нее могли попасть уже наступившие сроки
+        int steps = (int) Math.min(delta + 1, buckets.length);
+        int start = (int) (previousTicks & mask);
+        for (var idx = start; idx < start + steps; idx++) {
+            var sentinel = buckets[idx & mask];
+            var node = sentinel.timerNext;
+            sentinel.timerPrev = sentinel;
+            sentinel.timerNext = sentinel;
+            while (node != sentinel) {
+                var next = node.timerNext;
+                node.timerPrev = null;
+                node.timerNext = null;
+                consumer.accept(node);
+                node = next;
+            }
+        }
+    }
+
+    private TinyLfuCache.Node<K, V> findBucket(long time) {
+        long duration = time - nanos;
+        int lastLevel = wheel.length - 1;
+        for (var level = 0; level < lastLevel; level++) {
+            if (duration < SPANS[level + 1]) {
+                long ticks = time >>> SHIFT[level];
+                return wheel[level][(int) (ticks & (wheel[level].length - 1))];
+            }
+        }
+        return wheel[lastLevel][0];
+    }
+
+    private static <K, V> void link(TinyLfuCache.Node<K, V> sentinel, TinyLfuCache.Node<K, V> node) {
+        node.timerPrev = sentinel.timerPrev;
+        node.timerNext = sentinel;
+        sentinel.timerPrev.timerNext = node;
+        sentinel.timerPrev = node;
+    }
+
+    private static <K, V> void unlink(TinyLfuCache.Node<K, V> node) {
+        node.timerPrev.timerNext = node.timerNext;
+        node.timerNext.timerPrev = node.timerPrev;
+        node.timerPrev = null;
+        node.timerNext = null;
+    }
+
+    private static long ceilingPowerOfTwo(long x) {
+        return 1L << -Long.numberOfLeadingZeros(x - 1);
+    }
+}
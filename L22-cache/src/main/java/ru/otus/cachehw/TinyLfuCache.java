@@ -0,0 +1,593 @@
+package ru.otus.cachehw;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограниченный по размеру (или весу) потокобезопасный кэш с политикой W-TinyLFU.
+ *
+ * <p>Новые записи попадают в небольшое LRU-"окно", вытесненные из окна становятся кандидатами
+ * в основную SLRU-область (probation + protected). Кандидат допускается в основную область,
+ * только если по FrequencySketch он популярнее жертвы.
+ *
+ * <p>Чтение не берет блокировку: факт обращения пишется в ReadBuffer и применяется к политике позже.
+ * Изменения выполняются под одной блокировкой политики.
+ *
+ * <p>Опционально записи истекают через заданное время после записи и/или последнего чтения.
+ * Сроки отслеживает TimerWheel; истекшая запись сразу перестает возвращаться из get,
+ * а удаляется (с событием "expire") при ближайшем put или cleanUp.
+ */
+public class TinyLfuCache<K, V> implements HwCache<K, V> {
+    private static final double WINDOW_PERCENT = 0.01;
+    private static final double PROTECTED_PERCENT = 0.8;
+    // при заданном weigher вес не равен числу записей (например, байты), скетч по нему не размечается
+    private static final long WEIGHTED_EXPECTED_ENTRIES = 1 << 16;
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final List<HwListener<K, V>> listeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ReadBuffer<Node<K, V>> readBuffer = new ReadBuffer<>();
+    private final FrequencySketch sketch;
+    private final Weigher<? super K, ? super V> weigher;
+
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final TimerWheel<K, V> timerWheel;
+    private final long startNanos = System.nanoTime();
+    private volatile EvictionSink<K, V> evictionSink;
+
+    private final AccessOrderQueue<K, V> window = new AccessOrderQueue<>();
+    private final AccessOrderQueue<K, V> probation = new AccessOrderQueue<>();
+    private final AccessOrderQueue<K, V> protectedQueue = new AccessOrderQueue<>();
+    private long windowWeight;
+    private long protectedWeight;
+    private long weightedSize;
+
+    private TinyLfuCache(Builder<K, V> builder) {
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = builder.weigher;
+        this.windowMaximum = Math.max(1, (long) (maximumWeight * WINDOW_PERCENT));
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_PERCENT);
+        this.sketch = new FrequencySketch(builder.expectedEntries);
+        this.data = new ConcurrentHashMap<>((int) Math.min(builder.expectedEntries, 1 << 16));
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        this.timerWheel = expiresAfterWrite() || expiresAfterAccess() ? new TimerWheel<>() : null;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        put(key, value, NO_DEADLINE);
+    }
+
+    /**
+     * Как put, но срок expireAfterWrite отсчитывается не от текущего момента, а задан явно
+     * (System.nanoTime()): для записи, возвращаемой с другого уровня хранения. Истекшая запись не кладется.
+     */
+    void putWithWriteDeadline(K key, V value, long writeDeadlineNanos) {
+        if (writeDeadlineNanos != NO_DEADLINE && System.nanoTime() - writeDeadlineNanos >= 0) {
+            return;
+        }
+        put(key, value, writeDeadlineNanos);
+    }
+
+    /**
+     * Получатель вытесненных записей вместе со сроком expireAfterWrite (NO_DEADLINE, если его нет).
+     * Пока он задан, слушатели получают о вытеснении событие "demote" вместо "evict".
+     */
+    void setEvictionSink(EvictionSink<K, V> evictionSink) {
+        this.evictionSink = evictionSink;
+    }
+
+    private void put(K key, V value, long writeDeadlineNanos) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight is negative: " + weight);
+        }
+
+        List<Node<K, V>> expired;
+        List<Node<K, V>> evicted;
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            long now = now();
+            expired = expireEntries(now);
+            long writeTime = writeTime(now, writeDeadlineNanos);
+            var node = data.get(key);
+            if (node == null) {
+                node = new Node<>(key, value, weight);
+                node.writeTime = writeTime;
+                node.accessTime = now;
+                data.put(key, node);
+                sketch.increment(key.hashCode());
+                window.addLast(node);
+                windowWeight += weight;
+                weightedSize += weight;
+                scheduleExpiration(node);
+            } else {
+                int weightDelta = weight - node.weight;
+                if (node.queue == Node.WINDOW) {
+                    windowWeight += weightDelta;
+                } else if (node.queue == Node.PROTECTED) {
+                    protectedWeight += weightDelta;
+                }
+                node.value = value;
+                node.weight = weight;
+                node.writeTime = writeTime;
+                node.accessTime = now;
+                weightedSize += weightDelta;
+                scheduleExpiration(node);
+                onAccess(node);
+            }
+            evicted = evictEntries();
+        } finally {
+            evictionLock.unlock();
+        }
+
+        expired.forEach(node -> notifyListeners(node.key, node.value, "expire"));
+        notifyListeners(key, value, "put");
+        var sink = evictionSink;
+        evicted.forEach(node -> {
+            if (sink != null) {
+                // запись не потеряна, а перенесена во второй уровень
+                sink.evicted(node.key, node.value, writeDeadline(node));
+                notifyListeners(node.key, node.value, "demote");
+            } else {
+                notifyListeners(node.key, node.value, "evict");
+            }
+        });
+    }
+
+    @Override
+    public void remove(K key) {
+        V value = null;
+        evictionLock.lock();
+        try {
+            var node = data.remove(key);
+            if (node != null) {
+                value = node.value;
+                unlink(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        notifyListeners(key, value, "remove");
+    }
+
+    @Override
+    public V get(K key) {
+        var node = data.get(key);
+        V value = null;
+        if (node != null) {
+            long now = now();
+            if (isExpired(node, now)) {
+                tryExpireEntries();
+            } else {
+                value = node.value;
+                if (expiresAfterAccess()) {
+                    node.accessTime = now;
+                }
+                afterRead(node);
+            }
+        }
+        notifyListeners(key, value, "get");
+        return value;
+    }
+
+    @Override
+    public void addListener(HwListener<K, V> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(HwListener<K, V> listener) {
+        listeners.remove(listener);
+    }
+
+    public long estimatedSize() {
+        return data.size();
+    }
+
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /** Применяет накопленные обращения к политике вытеснения и удаляет истекшие записи */
+    public void cleanUp() {
+        List<Node<K, V>> expired;
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            expired = expireEntries(now());
+        } finally {
+            evictionLock.unlock();
+        }
+        expired.forEach(node -> notifyListeners(node.key, node.value, "expire"));
+    }
+
+    private void tryExpireEntries() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        List<Node<K, V>> expired;
+        try {
+            drainReadBuffer();
+            expired = expireEntries(now());
+        } finally {
+            evictionLock.unlock();
+        }
+        expired.forEach(node -> notifyListeners(node.key, node.value, "expire"));
+    }
+
+    private List<Node<K, V>> expireEntries(long now) {
+        if (timerWheel == null) {
+            return Collections.emptyList();
+        }
+        var expired = new ArrayList<Node<K, V>>();
+        timerWheel.advance(now, node -> {
+            if (node.queue == Node.DEAD) {
+                return;
+            }
+            if (isExpired(node, now)) {
+                evict(node, expired);
+            } else {
+                // срок сдвинулся чтением или запись лежала в крупной корзине
+                scheduleExpiration(node);
+            }
+        });
+        return expired;
+    }
+
+    private void scheduleExpiration(Node<K, V> node) {
+        if (timerWheel != null) {
+            timerWheel.schedule(node, expirationTime(node));
+        }
+    }
+
+    private long expirationTime(Node<K, V> node) {
+        long time = Long.MAX_VALUE;
+        if (expiresAfterWrite()) {
+            time = node.writeTime + expireAfterWriteNanos;
+        }
+        if (expiresAfterAccess()) {
+            time = Math.min(time, node.accessTime + expireAfterAccessNanos);
+        }
+        return time;
+    }
+
+    private long writeTime(long now, long writeDeadlineNanos) {
+        if (writeDeadlineNanos == NO_DEADLINE || !expiresAfterWrite()) {
+            return now;
+        }
+        return writeDeadlineNanos - startNanos - expireAfterWriteNanos;
+    }
+
+    private long writeDeadline(Node<K, V> node) {
+        return expiresAfterWrite() ? startNanos + node.writeTime + expireAfterWriteNanos : NO_DEADLINE;
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return timerWheel != null && expirationTime(node) - now <= 0;
+    }
+
+    private boolean expiresAfterWrite() {
+        return expireAfterWriteNanos > 0;
+    }
+
+    private boolean expiresAfterAccess() {
+        return expireAfterAccessNanos > 0;
+    }
+
+    /** Время от создания кэша: всегда неотрицательно, поэтому сдвиги в TimerWheel не переполняются */
+    private long now() {
+        return System.nanoTime() - startNanos;
+    }
+
+    private void afterRead(Node<K, V> node) {
+        if (readBuffer.offer(node) && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        readBuffer.drainTo(this::onAccess);
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.queue == Node.DEAD) {
+            return;
+        }
+        sketch.increment(node.key.hashCode());
+        if (expiresAfterAccess()) {
+            scheduleExpiration(node);
+        }
+        switch (node.queue) {
+            case Node.WINDOW -> window.moveToBack(node);
+            case Node.PROBATION -> {
+                probation.remove(node);
+                node.queue = Node.PROTECTED;
+                protectedQueue.addLast(node);
+                protectedWeight += node.weight;
+                demoteFromProtected();
+            }
+            default -> protectedQueue.moveToBack(node);
+        }
+    }
+
+    private void demoteFromProtected() {
+        while (protectedWeight > protectedMaximum) {
+            var demoted = protectedQueue.pollFirst();
+            if (demoted == null) {
+                return;
+            }
+            protectedWeight -= demoted.weight;
+            demoted.queue = Node.PROBATION;
+            probation.addLast(demoted);
+        }
+    }
+
+    private List<Node<K, V>> evictEntries() {
+        var candidate = evictFromWindow();
+        if (weightedSize <= maximumWeight) {
+            return Collections.emptyList();
+        }
+        return evictFromMain(candidate);
+    }
+
+    /** Переносит лишнее из окна в probation, возвращает первого кандидата */
+    private Node<K, V> evictFromWindow() {
+        Node<K, V> first = null;
+        var node = window.peekFirst();
+        while (windowWeight > windowMaximum && node != null) {
+            var next = node.next;
+            window.remove(node);
+            windowWeight -= node.weight;
+            node.queue = Node.PROBATION;
+            probation.addLast(node);
+            if (first == null) {
+                first = node;
+            }
+            node = next;
+        }
+        return first;
+    }
+
+    private List<Node<K, V>> evictFromMain(Node<K, V> firstCandidate) {
+        var evicted = new ArrayList<Node<K, V>>();
+        var candidate = firstCandidate;
+        var victim = probation.peekFirst();
+        while (weightedSize > maximumWeight) {
+            if (victim == null && candidate == null) {
+                // probation пуст: вытесняем из protected, затем из окна
+                var node = protectedQueue.peekFirst() != null ? protectedQueue.peekFirst() : window.peekFirst();
+                if (node == null) {
+                    break;
+                }
+                evict(node, evicted);
+            } else if (victim == null || candidate == null || victim == candidate) {
+                var node = victim != null ? victim : candidate;
+                var next = node.next;
+                evict(node, evicted);
+                if (candidate == node) {
+                    candidate = next;
+                }
+                victim = victim == node ? next : victim;
+            } else if (candidate.weight > maximumWeight || !admit(candidate.key, victim.key)) {
+                var next = candidate.next;
+                evict(candidate, evicted);
+                candidate = next;
+            } else {
+                var next = victim.next;
+                evict(victim, evicted);
+                victim = next;
+                candidate = candidate.next;
+            }
+        }
+        return evicted;
+    }
+
+    private boolean admit(K candidateKey, K victimKey) {
+        return sketch.frequency(candidateKey.hashCode()) > sketch.frequency(victimKey.hashCode());
+    }
+
+    private void evict(Node<K, V> node, List<Node<K, V>> evicted) {
+        data.remove(node.key, node);
+        unlink(node);
+        evicted.add(node);
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case Node.WINDOW -> {
+                window.remove(node);
+                windowWeight -= node.weight;
+            }
+            case Node.PROBATION -> probation.remove(node);
+            case Node.PROTECTED -> {
+                protectedQueue.remove(node);
+                protectedWeight -= node.weight;
+            }
+            default -> {
+                return;
+            }
+        }
+        if (timerWheel != null) {
+            timerWheel.deschedule(node);
+        }
+        weightedSize -= node.weight;
+        node.queue = Node.DEAD;
+    }
+
+    private void notifyListeners(K key, V value, String action) {
+        for (var listener : listeners) {
+            listener.notify(key, value, action);
+        }
+    }
+
+    @FunctionalInterface
+    interface EvictionSink<K, V> {
+        void evicted(K key, V value, long writeDeadlineNanos);
+    }
+
+    static final class Node<K, V> {
+        static final byte WINDOW = 0;
+        static final byte PROBATION = 1;
+        static final byte PROTECTED = 2;
+        static final byte DEAD = 3;
+
+        final K key;
+        volatile V value;
+        int weight;
+        volatile byte queue = WINDOW;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        long writeTime;
+        volatile long accessTime;
+        Node<K, V> timerPrev;
+        Node<K, V> timerNext;
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /** Интрузивный двусвязный список в порядке обращений: голова - давно не использовались */
+    static final class AccessOrderQueue<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+
+        Node<K, V> peekFirst() {
+            return head;
+        }
+
+        Node<K, V> pollFirst() {
+            var node = head;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    public static class Builder<K, V> {
+        private long maximumWeight = -1;
+        private long expectedEntries = -1;
+        private Weigher<? super K, ? super V> weigher;
+        private long expireAfterWriteNanos;
+        private long expireAfterAccessNanos;
+
+        public Builder<K, V> maximumSize(long maximumSize) {
+            this.maximumWeight = maximumSize;
+            return this;
+        }
+
+        public Builder<K, V> maximumWeight(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /** Ожидаемое число записей: по нему размечается FrequencySketch, вес для этого не годится */
+        public Builder<K, V> expectedEntries(long expectedEntries) {
+            if (expectedEntries <= 0) {
+                throw new IllegalArgumentException("expectedEntries must be positive: " + expectedEntries);
+            }
+            this.expectedEntries = expectedEntries;
+            return this;
+        }
+
+        public Builder<K, V> weigher(Weigher<? super K, ? super V> weigher) {
+            this.weigher = Objects.requireNonNull(weigher);
+            return this;
+        }
+
+        /** Запись истекает через duration после создания или последнего put */
+        public Builder<K, V> expireAfterWrite(Duration duration) {
+            this.expireAfterWriteNanos = requirePositive(duration);
+            return this;
+        }
+
+        /** Запись истекает через duration после последнего get или put */
+        public Builder<K, V> expireAfterAccess(Duration duration) {
+            this.expireAfterAccessNanos = requirePositive(duration);
+            return this;
+        }
+
+        private static long requirePositive(Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("duration must be positive: " + duration);
+            }
+            return duration.toNanos();
+        }
+
+        public TinyLfuCache<K, V> build() {
+            if (maximumWeight <= 0) {
+                throw new IllegalStateException("maximumSize or maximumWeight must be positive");
+            }
+            if (expectedEntries <= 0) {
+                expectedEntries = weigher == null ? maximumWeight : Math.min(maximumWeight, WEIGHTED_EXPECTED_ENTRIES);
+            }
+            if (weigher == null) {
+                weigher = (key, value) -> 1;
+            }
+            return new TinyLfuCache<>(this);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.otus.cachehw;
+
+/** Преобразование значения в компактный бинарный вид для хранения вне кучи */
+public interface ValueCodec<V> {
+
+    byte[] encode(V value);
+
+    V decode(byte[] bytes);
+}
@@ -0,0 +1,7 @@
+package ru.otus.cachehw;
+
+/** Вычисляет "вес" записи кэша, используется при ограничении кэша по весу, а не по количеству записей */
+@FunctionalInterface
+public interface Weigher<K, V> {
+    int weigh(K key, V value);
+}
@@ -0,0 +1,36 @@
+package ru.otus.crm.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import ru.otus.cachehw.ValueCodec;
+import ru.otus.crm.model.Client;
+
+/** Client в бинарном виде: [id][длина имени][имя в UTF-8], длина -1 означает null */
+public class ClientCodec implements ValueCodec<Client> {
+    private static final long NULL_ID = Long.MIN_VALUE;
+    private static final int NULL_NAME = -1;
+
+    @Override
+    public byte[] encode(Client client) {
+        var name = client.getName() == null ? null : client.getName().getBytes(StandardCharsets.UTF_8);
+        var buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + (name == null ? 0 : name.length));
+        buffer.putLong(client.getId() == null ? NULL_ID : client.getId());
+        buffer.putInt(name == null ? NULL_NAME : name.length);
+        if (name != null) {
+            buffer.put(name);
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public Client decode(byte[] bytes) {
+        var buffer = ByteBuffer.wrap(bytes);
+        long id = buffer.getLong();
+        int nameLength = buffer.getInt();
+        String name = null;
+        if (nameLength != NULL_NAME) {
+            name = new String(bytes, buffer.position(), nameLength, StandardCharsets.UTF_8);
+        }
+        return new Client(id == NULL_ID ? null : id, name);
+    }
+}
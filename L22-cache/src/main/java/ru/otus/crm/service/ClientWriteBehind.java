@@ -0,0 +1,343 @@
+package ru.otus.crm.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.otus.core.repository.DataTemplate;
+import ru.otus.core.sessionmanager.DataBaseOperationException;
+import ru.otus.core.sessionmanager.TransactionRunner;
+import ru.otus.crm.model.Client;
+
+/**
+ * Отложенная (write-behind) запись клиентов в БД пачками.
+ *
+ * <p>Изменения существующих клиентов складываются в очередь, где по каждому id остается только
+ * последнее состояние, и записываются фоновым потоком: одна транзакция (одно соединение) на пачку.
+ * Пачка уходит, когда набралось maxBatchSize изменений или прошло maxDelay с первого из них.
+ *
+ * <p>Новому клиенту id назначает БД, поэтому insert ждет записи своей пачки (group commit):
+ * одновременные вставки разделяют одну транзакцию.
+ *
+ * <p>Изменение, которое не удалось записать MAX_WRITE_ATTEMPTS раз подряд, выбрасывается из очереди
+ * с ошибкой в логе, учитывается в droppedUpdates() и передается в dropListener, чтобы владелец
+ * убрал его из кэшей; flush() бросает исключение при любой ошибке записи.
+ */
+public class ClientWriteBehind implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ClientWriteBehind.class);
+    static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final TransactionRunner transactionRunner;
+    private final DataTemplate<Client> dataTemplate;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchReady = lock.newCondition();
+    private final Queue<PendingInsert> pendingInserts = new ArrayDeque<>();
+    private final Map<Long, Client> pendingUpdates = new LinkedHashMap<>();
+    private final Map<Long, Client> flushingUpdates = new LinkedHashMap<>();
+    private final Map<Long, Integer> failedAttempts = new HashMap<>();
+    private long droppedUpdates;
+    private volatile Consumer<Client> dropListener = client -> {};
+    private long firstPendingNanos;
+    private boolean running = true;
+
+    // пачки пишутся строго по очереди, иначе версии одного id могут записаться не в том порядке
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Thread flusher;
+
+    public ClientWriteBehind(
+            TransactionRunner transactionRunner,
+            DataTemplate<Client> dataTemplate,
+            int maxBatchSize,
+            Duration maxDelay) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        // при нулевой задержке поток записи крутился бы в цикле ожидания без сна
+        if (maxDelay.isNegative() || maxDelay.isZero()) {
+            throw new IllegalArgumentException("maxDelay must be positive: " + maxDelay);
+        }
+        this.transactionRunner = transactionRunner;
+        this.dataTemplate = dataTemplate;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.flusher = new Thread(this::flushLoop, "client-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /** Ставит изменение в очередь и сразу возвращает управление */
+    public void update(Client client) {
+        if (client.getId() == null) {
+            throw new IllegalArgumentException("client without id can not be updated: " + client);
+        }
+        lock.lock();
+        try {
+            checkRunning();
+            pendingUpdates.put(client.getId(), client);
+            onEnqueued();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Ставит вставку в очередь и ждет, пока ее пачка будет записана; возвращает id из БД */
+    public long insert(Client client) {
+        var pendingInsert = new PendingInsert(client, new CompletableFuture<>());
+        lock.lock();
+        try {
+            checkRunning();
+            pendingInserts.add(pendingInsert);
+            onEnqueued();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            return pendingInsert.id().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /** Последнее еще не записанное в БД состояние клиента */
+    public Optional<Client> pending(long id) {
+        lock.lock();
+        try {
+            var client = pendingUpdates.get(id);
+            if (client == null) {
+                client = flushingUpdates.get(id);
+            }
+            return Optional.ofNullable(client);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Синхронно записывает все накопленные изменения, при ошибке записи бросает исключение */
+    public void flush() {
+        while (flushBatch(true) > 0) {
+            // пишем, пока очередь не опустеет
+        }
+    }
+
+    /** Вызывается вне блокировок для каждого выброшенного изменения: оно так и не попало в БД */
+    public void setDropListener(Consumer<Client> dropListener) {
+        this.dropListener = dropListener;
+    }
+
+    /** Сколько изменений выброшено из очереди после MAX_WRITE_ATTEMPTS неудачных попыток записи */
+    public long droppedUpdates() {
+        lock.lock();
+        try {
+            return droppedUpdates;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            batchReady.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void checkRunning() {
+        if (!running) {
+            throw new IllegalStateException("write-behind is closed");
+        }
+    }
+
+    private void onEnqueued() {
+        int pendingCount = pendingCount();
+        if (pendingCount == 1) {
+            firstPendingNanos = System.nanoTime();
+        }
+        if (pendingCount >= maxBatchSize) {
+            batchReady.signalAll();
+        }
+    }
+
+    private int pendingCount() {
+        return pendingInserts.size() + pendingUpdates.size();
+    }
+
+    private void flushLoop() {
+        while (true) {
+            lock.lock();
+            try {
+                while (running && !isBatchReady()) {
+                    long waitNanos = pendingCount() == 0
+                            ? maxDelayNanos
+                            : firstPendingNanos + maxDelayNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        batchReady.awaitNanos(waitNanos);
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            flushBatch(false);
+        }
+    }
+
+    private boolean isBatchReady() {
+        int pendingCount = pendingCount();
+        return pendingCount >= maxBatchSize
+                || (pendingCount > 0 && System.nanoTime() - firstPendingNanos >= maxDelayNanos);
+    }
+
+    private int flushBatch(boolean failOnError) {
+        flushLock.lock();
+        try {
+            var inserts = new ArrayList<PendingInsert>();
+            var updates = new ArrayList<Client>();
+            takeBatch(inserts, updates);
+            if (inserts.isEmpty() && updates.isEmpty()) {
+                return 0;
+            }
+            var error = writeBatch(inserts, updates);
+            if (error != null && failOnError) {
+                throw new DataBaseOperationException("write-behind flush error", error);
+            }
+            return inserts.size() + updates.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void takeBatch(List<PendingInsert> inserts, List<Client> updates) {
+        lock.lock();
+        try {
+            while (inserts.size() < maxBatchSize && !pendingInserts.isEmpty()) {
+                inserts.add(pendingInserts.poll());
+            }
+            var iterator = pendingUpdates.values().iterator();
+            while (inserts.size() + updates.size() < maxBatchSize && iterator.hasNext()) {
+                var client = iterator.next();
+                iterator.remove();
+                updates.add(client);
+                flushingUpdates.put(client.getId(), client);
+            }
+            if (pendingCount() > 0) {
+                firstPendingNanos = System.nanoTime();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private RuntimeException writeBatch(List<PendingInsert> inserts, List<Client> updates) {
+        List<Long> ids;
+        try {
+            ids = transactionRunner.doInTransaction(connection -> {
+                var insertedIds = dataTemplate.insertAll(
+                        connection, inserts.stream().map(PendingInsert::client).toList());
+                // проверка до commit: после него пачку уже нельзя считать неудачной
+                if (insertedIds.size() != inserts.size()) {
+                    throw new DataBaseOperationException(
+                            "write-behind insert error",
+                            new IllegalStateException(
+                                    "ids: " + insertedIds.size() + ", inserts: " + inserts.size()));
+                }
+                dataTemplate.updateAll(connection, updates);
+                return insertedIds;
+            });
+        } catch (RuntimeException e) {
+            log.error("write-behind batch failed, inserts:{}, updates:{}", inserts.size(), updates.size(), e);
+            inserts.forEach(pendingInsert -> pendingInsert.id().completeExceptionally(e));
+            requeue(updates);
+            return e;
+        } finally {
+            lock.lock();
+            try {
+                updates.forEach(client -> flushingUpdates.remove(client.getId(), client));
+            } finally {
+                lock.unlock();
+            }
+        }
+        for (var idx = 0; idx < inserts.size(); idx++) {
+            inserts.get(idx).id().complete(ids.get(idx));
+        }
+        clearFailedAttempts(updates);
+        log.info("write-behind batch flushed, inserts:{}, updates:{}", inserts.size(), updates.size());
+        return null;
+    }
+
+    /**
+     * Неудачные изменения возвращаются в очередь, если по id еще нет более нового состояния.
+     * После MAX_WRITE_ATTEMPTS неудач подряд изменение выбрасывается, иначе оно повторялось бы бесконечно.
+     */
+    private void requeue(List<Client> updates) {
+        var dropped = new ArrayList<Client>();
+        lock.lock();
+        try {
+            for (var client : updates) {
+                if (pendingUpdates.containsKey(client.getId())) {
+                    // более новое состояние получает свои попытки
+                    failedAttempts.remove(client.getId());
+                    continue;
+                }
+                int attempts = failedAttempts.merge(client.getId(), 1, Integer::sum);
+                if (attempts < MAX_WRITE_ATTEMPTS) {
+                    pendingUpdates.put(client.getId(), client);
+                } else {
+                    failedAttempts.remove(client.getId());
+                    droppedUpdates++;
+                    dropped.add(client);
+                    log.error("write-behind update dropped after {} attempts: {}", attempts, client);
+                }
+            }
+            if (pendingCount() > 0) {
+                firstPendingNanos = System.nanoTime();
+            }
+        } finally {
+            lock.unlock();
+        }
+        dropped.forEach(dropListener);
+    }
+
+    private void clearFailedAttempts(List<Client> updates) {
+        lock.lock();
+        try {
+            updates.forEach(client -> failedAttempts.remove(client.getId()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record PendingInsert(Client client, CompletableFuture<Long> id) {}
+}
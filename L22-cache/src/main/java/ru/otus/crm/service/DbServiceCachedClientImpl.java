@@ -1,65 +1,237 @@
 package ru.otus.crm.service;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.otus.cachehw.HwCache;
+import ru.otus.cachehw.QueryResultCache;
 import ru.otus.core.repository.DataTemplate;
+import ru.otus.core.sessionmanager.TransactionAction;
 import ru.otus.core.sessionmanager.TransactionRunner;
 import ru.otus.crm.model.Client;
 
 public class DbServiceCachedClientImpl implements DBServiceClient {
     private static final Logger log = LoggerFactory.getLogger(DbServiceCachedClientImpl.class);
+    private static final String FIND_ALL_QUERY = "client.findAll";
 
     private final DataTemplate<Client> dataTemplate;
     private final TransactionRunner transactionRunner;
     private final HwCache<Long, Client> cache;
+    private final ClientWriteBehind writeBehind;
+    private final QueryResultCache<Client> queryCache;
+    // счетчик записей в кэш: пакетная загрузка не кладет в кэш результат, если за время чтения была запись
+    private final AtomicLong cacheWrites = new AtomicLong();
+    private final Object cacheWriteLock = new Object();
 
     public DbServiceCachedClientImpl(
             TransactionRunner transactionRunner, DataTemplate<Client> dataTemplate, HwCache<Long, Client> cache) {
+        this(transactionRunner, dataTemplate, cache, null, null);
+    }
+
+    public DbServiceCachedClientImpl(
+            TransactionRunner transactionRunner,
+            DataTemplate<Client> dataTemplate,
+            HwCache<Long, Client> cache,
+            ClientWriteBehind writeBehind) {
+        this(transactionRunner, dataTemplate, cache, writeBehind, null);
+    }
+
+    /**
+     * writeBehind != null включает отложенную запись: save сразу обновляет кэш, а в БД пишет фоновый поток.
+     * queryCache != null включает кэширование списочных запросов до ближайшей записи.
+     */
+    public DbServiceCachedClientImpl(
+            TransactionRunner transactionRunner,
+            DataTemplate<Client> dataTemplate,
+            HwCache<Long, Client> cache,
+            ClientWriteBehind writeBehind,
+            QueryResultCache<Client> queryCache) {
         this.transactionRunner = transactionRunner;
         this.dataTemplate = dataTemplate;
         this.cache = cache;
+        this.writeBehind = writeBehind;
+        this.queryCache = queryCache;
+        if (writeBehind != null) {
+            writeBehind.setDropListener(this::evictDropped);
+        }
     }
 
     @Override
     public Client saveClient(Client client) {
-        return transactionRunner.doInTransaction(connection -> {
+        var savedClient = writeBehind != null ? saveClientWriteBehind(client) : saveClientDirect(client);
+        // инвалидируем после записи, иначе параллельный findAll может закэшировать старые данные
+        if (queryCache != null) {
+            queryCache.invalidate();
+        }
+        return savedClient;
+    }
+
+    private Client saveClientDirect(Client client) {
+        var savedClient = transactionRunner.doInTransaction(connection -> {
             if (client.getId() == null) {
                 var clientId = dataTemplate.insert(connection, client);
                 var createdClient = new Client(clientId, client.getName());
-                cache.put(clientId, createdClient);
                 log.info("created client: {}", createdClient);
                 return createdClient;
             }
             dataTemplate.update(connection, client);
-            cache.put(client.getId(), client);
             log.info("updated client: {}", client);
             return client;
         });
+        // в кэш после коммита: загрузка, начатая раньше, увидит запись и не затрет кэш старой строкой
+        putWritten(savedClient);
+        return savedClient;
     }
 
     @Override
     public Optional<Client> getClient(long id) {
-        var clientCache = cache.get(id);
-        if (clientCache != null) {
-            return Optional.of(clientCache);
+        // при LoadingHwCache одновременные промахи по одному id дают один запрос в БД
+        var client = cache.get(id, this::loadClient);
+        return Optional.ofNullable(client);
+    }
+
+    /**
+     * Клиенты по набору id: попадания берутся из кэша, а все промахи читаются одним findAllById
+     * и кладутся в кэш, если за время чтения не было записей. Отсутствующих в БД id в ответе нет.
+     */
+    public Map<Long, Client> getClients(long[] ids) {
+        var found = new HashMap<Long, Client>();
+        var misses = new long[ids.length];
+        int missCount = 0;
+        for (var id : ids) {
+            var client = cache.get(id);
+            if (client == null && writeBehind != null) {
+                client = writeBehind.pending(id).orElse(null);
+            }
+            if (client != null) {
+                found.put(id, client);
+            } else {
+                misses[missCount++] = id;
+            }
         }
-        return transactionRunner.doInTransaction(connection -> {
-            var clientOptional = dataTemplate.findById(connection, id);
-            clientOptional.ifPresent(client -> cache.put(id, client));
-            log.info("client: {}", clientOptional);
-            return clientOptional;
-        });
+        if (missCount > 0) {
+            var missedIds = Arrays.copyOf(misses, missCount);
+            long writesBeforeLoad = cacheWrites.get();
+            var loaded = readForCache(connection -> dataTemplate.findAllById(connection, missedIds));
+            putLoaded(loaded.values(), writesBeforeLoad);
+            found.putAll(loaded);
+            log.info("clients loaded by ids: {} of {} misses", loaded.size(), missCount);
+        }
+        return found;
     }
 
     @Override
     public List<Client> findAll() {
-        return transactionRunner.doInTransaction(connection -> {
-            var clientList = dataTemplate.findAll(connection);
-            log.info("clientList:{}", clientList);
-            return clientList;
+        return findAll(FIND_ALL_QUERY, List.of(), dataTemplate::findAll);
+    }
+
+    /**
+     * Списочный запрос через кэш результатов: query и params - ключ кэша, dbQuery выполняется при промахе.
+     * Без queryCache запрос всегда идет в БД.
+     */
+    public List<Client> findAll(String query, List<Object> params, TransactionAction<List<Client>> dbQuery) {
+        if (queryCache == null) {
+            return loadList(dbQuery, false);
+        }
+        // снимки id разрешаются через поштучный кэш: без строк списка в нем каждый повтор шел бы в БД
+        boolean cacheRows = queryCache.isIdSnapshots();
+        return queryCache.get(query, params, () -> loadList(dbQuery, cacheRows), Client::getId, this::getCachedClient);
+    }
+
+    private List<Client> loadList(TransactionAction<List<Client>> dbQuery, boolean cacheRows) {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+        long writesBeforeLoad = cacheWrites.get();
+        var clientList = readForCache(connection -> {
+            var clients = dbQuery.apply(connection);
+            log.info("clientList:{}", clients);
+            return clients;
         });
+        if (cacheRows) {
+            putLoaded(clientList, writesBeforeLoad);
+        }
+        return clientList;
+    }
+
+    /**
+     * Resolver для снимков id в queryCache: без обращения к БД. Промах возвращает null,
+     * и queryCache перечитывает список одним запросом вместо запроса на каждый id.
+     */
+    private Client getCachedClient(long id) {
+        var client = cache.get(id);
+        if (client == null && writeBehind != null) {
+            client = writeBehind.pending(id).orElse(null);
+        }
+        return client;
+    }
+
+    private Client saveClientWriteBehind(Client client) {
+        if (client.getId() == null) {
+            var clientId = writeBehind.insert(client);
+            var createdClient = new Client(clientId, client.getName());
+            putWritten(createdClient);
+            log.info("created client: {}", createdClient);
+            return createdClient;
+        }
+        putWritten(client);
+        writeBehind.update(client);
+        log.info("updated client (write-behind): {}", client);
+        return client;
+    }
+
+    private Client loadClient(long id) {
+        if (writeBehind != null) {
+            var pendingClient = writeBehind.pending(id);
+            if (pendingClient.isPresent()) {
+                return pendingClient.get();
+            }
+        }
+        return readForCache(connection -> {
+            var clientOptional = dataTemplate.findById(connection, id);
+            log.info("client: {}", clientOptional);
+            return clientOptional.orElse(null);
+        });
+    }
+
+    private void putWritten(Client client) {
+        synchronized (cacheWriteLock) {
+            cacheWrites.incrementAndGet();
+            cache.put(client.getId(), client);
+        }
+    }
+
+    /** Кладет прочитанные из БД строки в кэш, только если с writesBeforeLoad в кэш ничего не писали */
+    private void putLoaded(Collection<Client> loaded, long writesBeforeLoad) {
+        synchronized (cacheWriteLock) {
+            if (cacheWrites.get() == writesBeforeLoad) {
+                loaded.forEach(client -> cache.put(client.getId(), client));
+            }
+        }
+    }
+
+    /** Выброшенное write-behind изменение так и не записано в БД: кэши не должны его отдавать */
+    private void evictDropped(Client client) {
+        synchronized (cacheWriteLock) {
+            cacheWrites.incrementAndGet();
+            cache.remove(client.getId());
+        }
+        if (queryCache != null) {
+            queryCache.invalidate();
+        }
+    }
+
+    /**
+     * Чтение, результат которого попадает в кэш, идет в основную БД, а не в реплику:
+     * отстающая реплика вернула бы старую строку, и она жила бы в кэше до истечения срока.
+     */
+    private <T> T readForCache(TransactionAction<T> action) {
+        return transactionRunner.doInTransaction(action);
     }
 }
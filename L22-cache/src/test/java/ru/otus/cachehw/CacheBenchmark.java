@@ -0,0 +1,239 @@
+package ru.otus.cachehw;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Сравнение реализаций кэша на одинаковых нагрузках: 1, 4 и N потоков, с GC-профайлером (аллокации).
+ *
+ * <p>read_heavy - 95% чтений, ключи равномерно; write_heavy - 75% записей, ключи равномерно;
+ * zipf - 95% чтений, популярность ключей по закону Ципфа (немногие ключи горячие).
+ * Ключей больше, чем помещается в ограниченные кэши, поэтому вытеснение тоже измеряется.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+    private static final int KEY_SPACE = 1 << 17;
+    private static final int CACHE_SIZE = 1 << 14;
+    private static final int KEYS_PER_THREAD = 1 << 16;
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    // ключи и значения созданы заранее: упаковка Integer/Long не попадает в замер аллокаций,
+    // а WeakHashMap в MyCache не теряет записи, пока на ключи есть ссылки отсюда
+    private static final Integer[] KEYS = new Integer[KEY_SPACE];
+    private static final Long[] VALUES = new Long[KEY_SPACE];
+
+    static {
+        for (var idx = 0; idx < KEY_SPACE; idx++) {
+            KEYS[idx] = idx;
+            VALUES[idx] = (long) idx;
+        }
+    }
+
+    @Param({"MyCache", "TinyLfuCache", "Ehcache", "ConcurrentHashMap"})
+    public String cacheType;
+
+    @Param({"read_heavy", "write_heavy", "zipf"})
+    public String workload;
+
+    private BenchmarkCache cache;
+    private CacheManager cacheManager;
+
+    public static void main(String[] args) throws RunnerException {
+        int[] threadCounts = {1, 4, Runtime.getRuntime().availableProcessors()};
+        for (var threads : threadCounts) {
+            var opt = new OptionsBuilder()
+                    .include(CacheBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cache = switch (cacheType) {
+            case "MyCache" -> hwCache(new MyCache<>(), true);
+            case "TinyLfuCache" -> hwCache(
+                    new TinyLfuCache.Builder<Integer, Long>()
+                            .maximumSize(CACHE_SIZE)
+                            .build(),
+                    false);
+            case "Ehcache" -> ehcache();
+            case "ConcurrentHashMap" -> map(new ConcurrentHashMap<>(KEY_SPACE));
+            default -> throw new IllegalArgumentException("unknown cacheType: " + cacheType);
+        };
+        for (var idx = 0; idx < CACHE_SIZE; idx++) {
+            cache.put(KEYS[idx], VALUES[idx]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (cacheManager != null) {
+            cacheManager.close();
+        }
+    }
+
+    @Benchmark
+    public Long operation(ThreadState state) {
+        int key = state.nextKey();
+        if (state.nextIsWrite()) {
+            cache.put(KEYS[key], VALUES[key]);
+            return VALUES[key];
+        }
+        return cache.get(KEYS[key]);
+    }
+
+    /** Последовательность ключей и операций у каждого потока своя, генерируется до замера */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int[] keys;
+        private boolean[] writes;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setup(CacheBenchmark benchmark) {
+            var random = new Random(Thread.currentThread().threadId());
+            double writeRatio = "write_heavy".equals(benchmark.workload) ? 0.75 : 0.05;
+            var zipf = "zipf".equals(benchmark.workload) ? ZipfDistribution.INSTANCE : null;
+            keys = new int[KEYS_PER_THREAD];
+            writes = new boolean[KEYS_PER_THREAD];
+            for (var idx = 0; idx < KEYS_PER_THREAD; idx++) {
+                keys[idx] = zipf == null ? random.nextInt(KEY_SPACE) : zipf.sample(random);
+                writes[idx] = random.nextDouble() < writeRatio;
+            }
+        }
+
+        int nextKey() {
+            cursor = (cursor + 1) & (KEYS_PER_THREAD - 1);
+            return keys[cursor];
+        }
+
+        boolean nextIsWrite() {
+            return writes[cursor];
+        }
+    }
+
+    /** Ключ k выбирается с вероятностью, пропорциональной 1 / (k + 1)^ZIPF_EXPONENT */
+    private static final class ZipfDistribution {
+        static final ZipfDistribution INSTANCE = new ZipfDistribution();
+
+        private final double[] cumulative = new double[KEY_SPACE];
+
+        private ZipfDistribution() {
+            double sum = 0;
+            for (var idx = 0; idx < KEY_SPACE; idx++) {
+                sum += 1.0 / Math.pow(idx + 1.0, ZIPF_EXPONENT);
+                cumulative[idx] = sum;
+            }
+            for (var idx = 0; idx < KEY_SPACE; idx++) {
+                cumulative[idx] /= sum;
+            }
+        }
+
+        int sample(Random random) {
+            int found = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(found >= 0 ? found : -found - 1, KEY_SPACE - 1);
+        }
+    }
+
+    private interface BenchmarkCache {
+        Long get(Integer key);
+
+        void put(Integer key, Long value);
+    }
+
+    /** MyCache не потокобезопасен, поэтому при нескольких потоках доступ к нему идет под общей блокировкой */
+    private static BenchmarkCache hwCache(HwCache<Integer, Long> hwCache, boolean synchronize) {
+        if (!synchronize) {
+            return new BenchmarkCache() {
+                @Override
+                public Long get(Integer key) {
+                    return hwCache.get(key);
+                }
+
+                @Override
+                public void put(Integer key, Long value) {
+                    hwCache.put(key, value);
+                }
+            };
+        }
+        return new BenchmarkCache() {
+            @Override
+            public synchronized Long get(Integer key) {
+                return hwCache.get(key);
+            }
+
+            @Override
+            public synchronized void put(Integer key, Long value) {
+                hwCache.put(key, value);
+            }
+        };
+    }
+
+    private static BenchmarkCache map(Map<Integer, Long> map) {
+        return new BenchmarkCache() {
+            @Override
+            public Long get(Integer key) {
+                return map.get(key);
+            }
+
+            @Override
+            public void put(Integer key, Long value) {
+                map.put(key, value);
+            }
+        };
+    }
+
+    /** Та же конфигурация, что в EhcacheDemo, но без логирующего слушателя и с размером как у TinyLfuCache */
+    private BenchmarkCache ehcache() {
+        cacheManager = CacheManagerBuilder.newCacheManagerBuilder().build(true);
+        Cache<Integer, Long> ehcache = cacheManager.createCache(
+                "Benchmark-Cache",
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                                Integer.class, Long.class, ResourcePoolsBuilder.heap(CACHE_SIZE))
+                        .build());
+        return new BenchmarkCache() {
+            @Override
+            public Long get(Integer key) {
+                return ehcache.get(key);
+            }
+
+            @Override
+            public void put(Integer key, Long value) {
+                ehcache.put(key, value);
+            }
+        };
+    }
+}
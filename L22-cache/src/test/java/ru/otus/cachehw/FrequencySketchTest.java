@@ -0,0 +1,51 @@
+package ru.otus.cachehw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("FrequencySketch ")
+class FrequencySketchTest {
+    private static final int MAX_FREQUENCY = 15;
+
+    @Test
+    @DisplayName(" считает обращения до насыщения 4-битного счетчика")
+    void shouldCountUpToMaximum() {
+        // given
+        var sketch = new FrequencySketch(1_000);
+
+        // when
+        for (var idx = 0; idx < 5; idx++) {
+            sketch.increment(42);
+        }
+        var afterFive = sketch.frequency(42);
+        for (var idx = 0; idx < 100; idx++) {
+            sketch.increment(42);
+        }
+
+        // then
+        assertThat(afterFive).isEqualTo(5);
+        assertThat(sketch.frequency(42)).isEqualTo(MAX_FREQUENCY);
+        assertThat(sketch.frequency(43)).isZero();
+    }
+
+    @Test
+    @DisplayName(" делит счетчики пополам после 10 * capacity приращений")
+    void shouldHalveCountersAfterSample() {
+        // given
+        var capacity = 64;
+        var sketch = new FrequencySketch(capacity);
+        for (var idx = 0; idx < 8; idx++) {
+            sketch.increment(-1);
+        }
+
+        // when
+        for (var key = 0; key < 10 * capacity; key++) {
+            sketch.increment(key);
+        }
+
+        // then
+        assertThat(sketch.frequency(-1)).isLessThan(8);
+    }
+}
@@ -0,0 +1,197 @@
+package ru.otus.cachehw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("LoadingHwCache ")
+class LoadingHwCacheTest {
+    private static final int THREADS = 8;
+
+    @Test
+    @DisplayName(" при одновременных промахах по одному ключу вызывает loader один раз")
+    void shouldLoadOnceForConcurrentMisses() throws Exception {
+        // given
+        var cache = new LoadingHwCache<>(newDelegate());
+        var loads = new AtomicInteger();
+        var loaderEntered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(THREADS);
+
+        // when
+        var results = new ArrayList<Future<String>>();
+        try {
+            for (var idx = 0; idx < THREADS; idx++) {
+                results.add(executor.submit(() -> cache.get(1, key -> {
+                    loads.incrementAndGet();
+                    loaderEntered.countDown();
+                    awaitQuietly(release);
+                    return "value" + key;
+                })));
+            }
+            assertThat(loaderEntered.await(5, TimeUnit.SECONDS)).isTrue();
+            TimeUnit.MILLISECONDS.sleep(50);
+            release.countDown();
+
+            // then
+            for (var result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.get(1)).isEqualTo("value1");
+    }
+
+    @Test
+    @DisplayName(" не затирает результатом загрузки значение, записанное во время загрузки")
+    void shouldNotOverwriteValuePutDuringLoad() throws Exception {
+        // given
+        var cache = new LoadingHwCache<>(newDelegate());
+        var loaderEntered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var executor = Executors.newSingleThreadExecutor();
+
+        try {
+            var load = executor.submit(() -> cache.get(1, key -> {
+                loaderEntered.countDown();
+                awaitQuietly(release);
+                return "stale";
+            }));
+            assertThat(loaderEntered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // when
+            cache.put(1, "fresh");
+            release.countDown();
+
+            // then
+            assertThat(load.get(5, TimeUnit.SECONDS)).isEqualTo("stale");
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(cache.get(1)).isEqualTo("fresh");
+    }
+
+    @Test
+    @DisplayName(" запоминает отсутствующий ключ на negativeTtl и забывает его после put")
+    void shouldRememberAbsentKey() {
+        // given
+        var cache = new LoadingHwCache<>(newDelegate(), Duration.ofMinutes(1));
+        var loads = new AtomicInteger();
+
+        // when
+        var first = cache.get(1, key -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        var second = cache.get(1, key -> {
+            loads.incrementAndGet();
+            return "loaded";
+        });
+
+        // then
+        assertThat(first).isNull();
+        assertThat(second).isNull();
+        assertThat(loads.get()).isEqualTo(1);
+
+        // when
+        cache.put(1, "value1");
+
+        // then
+        assertThat(cache.get(1, key -> "loaded")).isEqualTo("value1");
+        cache.remove(1);
+        assertThat(cache.get(1, key -> "loaded")).isEqualTo("loaded");
+    }
+
+    @Test
+    @DisplayName(" без negativeTtl повторяет загрузку отсутствующего ключа")
+    void shouldReloadAbsentKeyWithoutNegativeTtl() {
+        // given
+        var cache = new LoadingHwCache<>(newDelegate());
+        var loads = new AtomicInteger();
+
+        // when
+        for (var idx = 0; idx < 3; idx++) {
+            cache.get(1, key -> {
+                loads.incrementAndGet();
+                return null;
+            });
+        }
+
+        // then
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName(" пробрасывает ошибку loader и не запоминает ее")
+    void shouldRethrowLoaderFailure() {
+        // given
+        var cache = new LoadingHwCache<>(newDelegate(), Duration.ofMinutes(1));
+
+        // when, then
+        assertThatThrownBy(() -> cache.get(1, key -> {
+                    throw new IllegalStateException("boom");
+                }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("boom");
+        assertThat(cache.get(1, key -> "value1")).isEqualTo("value1");
+    }
+
+    @Test
+    @DisplayName(" передает Error из loader ожидающим той же загрузки, а не оставляет их ждать")
+    void shouldPropagateErrorToWaiters() throws Exception {
+        // given
+        var cache = new LoadingHwCache<>(newDelegate());
+        var loaderEntered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(2);
+
+        try {
+            var owner = executor.submit(() -> cache.get(1, key -> {
+                loaderEntered.countDown();
+                awaitQuietly(release);
+                throw new StackOverflowError("loader");
+            }));
+            assertThat(loaderEntered.await(5, TimeUnit.SECONDS)).isTrue();
+            var waiter = executor.submit(() -> cache.get(1, key -> "not coalesced"));
+            TimeUnit.MILLISECONDS.sleep(50);
+
+            // when
+            release.countDown();
+
+            // then
+            assertThatThrownBy(() -> owner.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(StackOverflowError.class);
+            assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(StackOverflowError.class);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(cache.get(1, key -> "value1")).isEqualTo("value1");
+    }
+
+    private static HwCache<Integer, String> newDelegate() {
+        return new TinyLfuCache.Builder<Integer, String>().maximumSize(100).build();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.otus.cachehw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("LongKeyHwCache ")
+class LongKeyHwCacheTest {
+    // сегмент на 10 записей: таблица из 32 ячеек
+    private static final int SEGMENT_SIZE = 10;
+    private static final int TABLE_MASK = 31;
+
+    @Test
+    @DisplayName(" находит ключи цепочки, перешедшей через конец таблицы, после удаления ее начала")
+    void shouldFindKeysAfterDeleteWithWrapAround() {
+        // given
+        var segment = new LongKeyHwCache.Segment<String>(SEGMENT_SIZE);
+        var lastSlotKeys = keysWithHomeSlot(TABLE_MASK, 3);
+        var firstSlotKey = keysWithHomeSlot(0, 1).getFirst();
+        // цепочка занимает ячейки 31, 0, 1 и 2
+        lastSlotKeys.forEach(key -> put(segment, key));
+        put(segment, firstSlotKey);
+
+        // when
+        segment.remove(lastSlotKeys.getFirst(), LongKeyHwCache.spread(lastSlotKeys.getFirst()));
+
+        // then
+        assertThat(get(segment, lastSlotKeys.getFirst())).isNull();
+        assertThat(get(segment, lastSlotKeys.get(1))).isEqualTo("value" + lastSlotKeys.get(1));
+        assertThat(get(segment, lastSlotKeys.get(2))).isEqualTo("value" + lastSlotKeys.get(2));
+        assertThat(get(segment, firstSlotKey)).isEqualTo("value" + firstSlotKey);
+
+        // when
+        segment.remove(lastSlotKeys.get(1), LongKeyHwCache.spread(lastSlotKeys.get(1)));
+
+        // then
+        assertThat(get(segment, lastSlotKeys.get(2))).isEqualTo("value" + lastSlotKeys.get(2));
+        assertThat(get(segment, firstSlotKey)).isEqualTo("value" + firstSlotKey);
+    }
+
+    @Test
+    @DisplayName(" при случайных вставках и удалениях совпадает с HashMap")
+    void shouldMatchHashMapUnderRandomOperations() {
+        // given
+        var segment = new LongKeyHwCache.Segment<String>(1_000);
+        var expected = new HashMap<Long, String>();
+        var random = new Random(42);
+
+        // when
+        for (var idx = 0; idx < 100_000; idx++) {
+            long key = random.nextInt(500);
+            if (random.nextBoolean()) {
+                put(segment, key);
+                expected.put(key, "value" + key);
+            } else {
+                segment.remove(key, LongKeyHwCache.spread(key));
+                expected.remove(key);
+            }
+        }
+
+        // then
+        for (long key = 0; key < 500; key++) {
+            assertThat(get(segment, key)).isEqualTo(expected.get(key));
+        }
+    }
+
+    @Test
+    @DisplayName(" держит число записей в пределах maximumSize и сообщает о вытеснении")
+    void shouldKeepSizeWithinMaximum() {
+        // given
+        var cache = new LongKeyHwCache.Builder<String>().maximumSize(1_024).build();
+        var evictions = new AtomicInteger();
+        cache.addListener((key, value, action) -> {
+            if ("evict".equals(action)) {
+                evictions.incrementAndGet();
+            }
+        });
+
+        // when
+        for (long key = 0; key < 10_000; key++) {
+            cache.put(key, "value" + key);
+        }
+
+        // then
+        assertThat(cache.estimatedSize()).isEqualTo(1_024);
+        assertThat(evictions.get()).isEqualTo(10_000 - 1_024);
+    }
+
+    private static List<Long> keysWithHomeSlot(int slot, int count) {
+        var keys = new ArrayList<Long>();
+        for (long key = 1; keys.size() < count; key++) {
+            if ((LongKeyHwCache.spread(key) & TABLE_MASK) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static void put(LongKeyHwCache.Segment<String> segment, long key) {
+        segment.put(key, LongKeyHwCache.spread(key), "value" + key);
+    }
+
+    private static String get(LongKeyHwCache.Segment<String> segment, long key) {
+        return segment.get(key, LongKeyHwCache.spread(key));
+    }
+}
@@ -0,0 +1,90 @@
+package ru.otus.cachehw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("MpscRingBuffer ")
+class MpscRingBufferTest {
+    private static final int PRODUCERS = 4;
+    private static final int PER_PRODUCER = 10_000;
+
+    @Test
+    @DisplayName(" отдает элементы в порядке добавления и не принимает лишние при заполнении")
+    void shouldKeepOrderAndCapacity() {
+        // given
+        var buffer = new MpscRingBuffer<Integer>(3);
+
+        // when
+        var accepted = new ArrayList<Boolean>();
+        for (var idx = 0; idx < 5; idx++) {
+            accepted.add(buffer.offer(idx));
+        }
+
+        // then
+        // емкость округляется до степени двойки
+        assertThat(accepted).containsExactly(true, true, true, true, false);
+        assertThat(buffer.poll()).isEqualTo(0);
+        assertThat(buffer.offer(4)).isTrue();
+        assertThat(List.of(buffer.poll(), buffer.poll(), buffer.poll(), buffer.poll()))
+                .containsExactly(1, 2, 3, 4);
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName(" при нескольких писателях доставляет читателю каждый элемент один раз и в порядке писателя")
+    void shouldDeliverAllElementsFromConcurrentProducers() throws InterruptedException {
+        // given
+        var buffer = new MpscRingBuffer<long[]>(64);
+        var start = new CountDownLatch(1);
+        var producers = new ArrayList<Thread>();
+        for (var producer = 0; producer < PRODUCERS; producer++) {
+            long producerId = producer;
+            producers.add(Thread.ofPlatform().start(() -> {
+                awaitQuietly(start);
+                for (long seq = 0; seq < PER_PRODUCER; seq++) {
+                    var element = new long[] {producerId, seq};
+                    while (!buffer.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+
+        // when
+        start.countDown();
+        var nextSeq = new long[PRODUCERS];
+        var received = 0;
+        while (received < PRODUCERS * PER_PRODUCER) {
+            var element = buffer.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            // then
+            assertThat(element[1]).isEqualTo(nextSeq[(int) element[0]]);
+            nextSeq[(int) element[0]]++;
+            received++;
+        }
+        for (var producer : producers) {
+            producer.join();
+        }
+
+        // then
+        assertThat(nextSeq).containsOnly(PER_PRODUCER);
+        assertThat(buffer.poll()).isNull();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
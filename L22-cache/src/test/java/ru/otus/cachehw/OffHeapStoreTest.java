@@ -0,0 +1,144 @@
+package ru.otus.cachehw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("OffHeapStore ")
+class OffHeapStoreTest {
+    private static final int HEADER_BYTES = 20;
+
+    private OffHeapStore<String> store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName(" сохраняет, заменяет, забирает и удаляет значения")
+    void shouldPutGetTakeAndRemove() {
+        // given
+        store = new OffHeapStore<>(1024, new StringCodec());
+
+        // when
+        store.put(1, "first");
+        store.put(1, "second");
+        store.put(2, "other");
+        store.put(3, "third");
+
+        // then
+        assertThat(store.get(1)).isEqualTo("second");
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.take(2)).isEqualTo("other");
+        assertThat(store.get(2)).isNull();
+        store.remove(3);
+        assertThat(store.get(3)).isNull();
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName(" при переполнении пишет по кругу и затирает самые старые записи")
+    void shouldOverwriteOldestRecordsOnWrapAround() {
+        // given
+        int capacity = 200;
+        store = new OffHeapStore<>(capacity, new StringCodec());
+
+        // when
+        for (long key = 0; key < 100; key++) {
+            assertThat(store.put(key, "value-%02d".formatted(key))).isTrue();
+        }
+
+        // then
+        assertThat(store.get(0)).isNull();
+        for (long key = 95; key < 100; key++) {
+            assertThat(store.get(key)).isEqualTo("value-%02d".formatted(key));
+        }
+        assertThat(store.size()).isLessThanOrEqualTo(capacity / (HEADER_BYTES + "value-00".length()));
+        assertThat(store.usedBytes()).isLessThanOrEqualTo(capacity);
+    }
+
+    @Test
+    @DisplayName(" после любых перезаписей по кругу отдает только последнее значение ключа")
+    void shouldNeverReturnStaleValue() {
+        // given
+        int capacity = 500;
+        store = new OffHeapStore<>(capacity, new StringCodec());
+        var latest = new HashMap<Long, String>();
+        var random = new Random(42);
+
+        for (var idx = 0; idx < 20_000; idx++) {
+            // when
+            long key = random.nextInt(50);
+            var value = String.valueOf(idx).repeat(1 + random.nextInt(5));
+            store.put(key, value);
+            latest.put(key, value);
+
+            // then
+            assertThat(store.get(key)).isEqualTo(value);
+            long probe = random.nextInt(50);
+            var stored = store.get(probe);
+            if (stored != null) {
+                assertThat(stored).isEqualTo(latest.get(probe));
+            }
+            assertThat(store.usedBytes()).isLessThanOrEqualTo(capacity);
+        }
+    }
+
+    @Test
+    @DisplayName(" не отдает истекшую запись и сохраняет срок при takeEntry")
+    void shouldHandleExpiry() {
+        // given
+        store = new OffHeapStore<>(1024, new StringCodec());
+        long deadline = System.nanoTime() + TimeUnit.HOURS.toNanos(1);
+        store.put(1, "expired", System.nanoTime() - 1);
+        store.put(2, "alive", deadline);
+
+        // when
+        var expired = store.get(1);
+        var entry = store.takeEntry(2);
+
+        // then
+        assertThat(expired).isNull();
+        assertThat(entry).isEqualTo(new OffHeapStore.Entry<>("alive", deadline));
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    @DisplayName(" не принимает запись больше хранилища и слишком маленький объем")
+    void shouldRejectTooLargeRecord() {
+        // given
+        store = new OffHeapStore<>(64, new StringCodec());
+
+        // when
+        var accepted = store.put(1, "x".repeat(64 - HEADER_BYTES + 1));
+
+        // then
+        assertThat(accepted).isFalse();
+        assertThat(store.put(2, "x".repeat(64 - HEADER_BYTES))).isTrue();
+        assertThat(store.get(2)).hasSize(64 - HEADER_BYTES);
+        assertThatThrownBy(() -> new OffHeapStore<>(HEADER_BYTES - 1, new StringCodec()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static class StringCodec implements ValueCodec<String> {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ru.otus.cachehw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("QueryResultCache ")
+class QueryResultCacheTest {
+    private static final String QUERY = "select * from client where name like ?";
+
+    private final Map<Long, Row> rows = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    @DisplayName(" отдает сохраненный результат для тех же запроса и параметров")
+    void shouldReuseResultForSameQuery() {
+        // given
+        var cache = new QueryResultCache<Row>(10, false);
+        rows.put(1L, new Row(1, "a1"));
+
+        // when
+        var first = get(cache, "a%");
+        rows.put(2L, new Row(2, "a2"));
+        var second = get(cache, "a%");
+        var otherParams = get(cache, "b%");
+
+        // then
+        assertThat(first).containsExactly(new Row(1, "a1"));
+        assertThat(second).isEqualTo(first);
+        assertThat(otherParams).hasSize(2);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName(" после invalidate перечитывает результат")
+    void shouldReloadAfterInvalidate() {
+        // given
+        var cache = new QueryResultCache<Row>(10, false);
+        rows.put(1L, new Row(1, "a1"));
+        get(cache, "a%");
+
+        // when
+        rows.put(2L, new Row(2, "a2"));
+        cache.invalidate();
+        var reloaded = get(cache, "a%");
+
+        // then
+        assertThat(cache.version()).isEqualTo(1);
+        assertThat(reloaded).containsExactlyInAnyOrder(new Row(1, "a1"), new Row(2, "a2"));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName(" не отдает повторно результат, во время загрузки которого была запись")
+    void shouldNotReuseResultLoadedDuringWrite() {
+        // given
+        var cache = new QueryResultCache<Row>(10, false);
+        rows.put(1L, new Row(1, "a1"));
+
+        // when
+        var first = cache.get(
+                QUERY,
+                List.of("a%"),
+                () -> {
+                    var loaded = load();
+                    // запись, завершившаяся между чтением и сохранением результата
+                    rows.put(2L, new Row(2, "a2"));
+                    cache.invalidate();
+                    return loaded;
+                },
+                Row::id,
+                rows::get);
+        var second = get(cache, "a%");
+
+        // then
+        assertThat(first).containsExactly(new Row(1, "a1"));
+        assertThat(second).hasSize(2);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName(" в режиме idSnapshots берет объекты через resolver и перечитывает, если id не нашелся")
+    void shouldResolveIdSnapshots() {
+        // given
+        var cache = new QueryResultCache<Row>(10, true);
+        rows.put(1L, new Row(1, "a1"));
+        rows.put(2L, new Row(2, "a2"));
+        get(cache, "a%");
+
+        // when
+        rows.put(1L, new Row(1, "changed"));
+        var resolved = get(cache, "a%");
+
+        // then
+        assertThat(resolved).containsExactlyInAnyOrder(new Row(1, "changed"), new Row(2, "a2"));
+        assertThat(loads.get()).isEqualTo(1);
+
+        // when
+        rows.remove(2L);
+        var reloaded = get(cache, "a%");
+
+        // then
+        assertThat(reloaded).containsExactly(new Row(1, "changed"));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private List<Row> get(QueryResultCache<Row> cache, String pattern) {
+        return cache.get(QUERY, List.of(pattern), this::load, Row::id, rows::get);
+    }
+
+    private List<Row> load() {
+        loads.incrementAndGet();
+        return List.copyOf(rows.values());
+    }
+
+    private record Row(long id, String name) {}
+}
@@ -0,0 +1,124 @@
+package ru.otus.cachehw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("RecordingHwCache ")
+class RecordingHwCacheTest {
+    private static final int THREADS = 4;
+
+    @Test
+    @DisplayName(" считает попадания, промахи и загрузки")
+    void shouldCountHitsMissesAndLoads() {
+        // given
+        var cache = new RecordingHwCache<>("test", newHeap(100));
+
+        // when
+        cache.get(1L);
+        cache.get(1L, key -> "value" + key);
+        cache.get(1L, key -> "not loaded");
+        cache.get(1L);
+        assertThatThrownBy(() -> cache.get(2L, key -> {
+                    throw new IllegalStateException("loader");
+                }))
+                .isInstanceOf(IllegalStateException.class);
+
+        // then
+        var stats = cache.snapshot();
+        assertThat(stats.hitCount()).isEqualTo(2);
+        assertThat(stats.missCount()).isEqualTo(3);
+        assertThat(stats.loadSuccessCount()).isEqualTo(1);
+        assertThat(stats.loadFailureCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName(" считает промахом ожидание загрузки, начатой другим потоком")
+    void shouldCountWaitOnConcurrentLoadAsMiss() throws Exception {
+        // given
+        var cache = new RecordingHwCache<>("test", new LoadingHwCache<>(newHeap(100)));
+        var loaderEntered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(THREADS);
+
+        // when
+        var results = new ArrayList<Future<String>>();
+        try {
+            results.add(executor.submit(() -> cache.get(1L, key -> {
+                loaderEntered.countDown();
+                awaitQuietly(release);
+                return "value" + key;
+            })));
+            assertThat(loaderEntered.await(5, TimeUnit.SECONDS)).isTrue();
+            for (var idx = 1; idx < THREADS; idx++) {
+                results.add(executor.submit(() -> cache.get(1L, key -> "not coalesced")));
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+            release.countDown();
+            for (var result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // then
+        var stats = cache.snapshot();
+        assertThat(stats.hitCount()).isZero();
+        assertThat(stats.missCount()).isEqualTo(THREADS);
+        assertThat(stats.loadSuccessCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName(" считает вытеснения из кэша")
+    void shouldCountEvictions() {
+        // given
+        var cache = new RecordingHwCache<>("test", newHeap(1));
+
+        // when
+        for (long key = 1; key <= 10; key++) {
+            cache.put(key, "value" + key);
+        }
+
+        // then
+        assertThat(cache.snapshot().evictionCount()).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName(" не считает вытеснением перенос записи во второй уровень")
+    void shouldNotCountDemotionAsEviction() {
+        // given
+        try (var offHeap = new OffHeapStore<>(1024, new OffHeapStoreTest.StringCodec())) {
+            var tiered = new TieredHwCache<>(newHeap(1), offHeap);
+            var cache = new RecordingHwCache<>("test", tiered);
+
+            // when
+            for (long key = 1; key <= 10; key++) {
+                cache.put(key, "value" + key);
+            }
+
+            // then
+            assertThat(offHeap.size()).isEqualTo(9);
+            assertThat(cache.snapshot().evictionCount()).isZero();
+        }
+    }
+
+    private static TinyLfuCache<Long, String> newHeap(int maximumSize) {
+        return new TinyLfuCache.Builder<Long, String>().maximumSize(maximumSize).build();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ru.otus.cachehw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("TieredHwCache ")
+class TieredHwCacheTest {
+    private final OffHeapStore<String> offHeap = new OffHeapStore<>(1024, new OffHeapStoreTest.StringCodec());
+
+    @AfterEach
+    void tearDown() {
+        offHeap.close();
+    }
+
+    @Test
+    @DisplayName(" переносит вытесненные из кучи записи вне кучи и возвращает их обратно")
+    void shouldMoveEvictedEntriesOffHeap() {
+        // given
+        var cache = new TieredHwCache<>(newHeap(Duration.ofHours(1)), offHeap);
+
+        // when
+        for (long key = 1; key <= 10; key++) {
+            cache.put(key, "value" + key);
+        }
+
+        // then
+        assertThat(offHeap.size()).isEqualTo(9);
+        assertThat(cache.estimatedSize()).isEqualTo(10);
+        for (long key = 1; key <= 10; key++) {
+            assertThat(cache.get(key)).isEqualTo("value" + key);
+        }
+    }
+
+    @Test
+    @DisplayName(" не продлевает срок expireAfterWrite при переносе записи обратно в кучу")
+    void shouldKeepWriteDeadlineOnPromotion() throws InterruptedException {
+        // given
+        var cache = new TieredHwCache<>(newHeap(Duration.ofMillis(400)), offHeap);
+        for (long key = 1; key <= 10; key++) {
+            cache.put(key, "value" + key);
+        }
+
+        // when
+        TimeUnit.MILLISECONDS.sleep(250);
+        var promoted = cache.get(1L);
+        TimeUnit.MILLISECONDS.sleep(250);
+        var afterDeadline = new ArrayList<String>();
+        for (long key = 1; key <= 10; key++) {
+            afterDeadline.add(cache.get(key));
+        }
+
+        // then
+        assertThat(promoted).isEqualTo("value1");
+        assertThat(afterDeadline).containsOnlyNulls();
+    }
+
+    @Test
+    @DisplayName(" находит запись при чтении, параллельном с записью того же ключа")
+    void shouldFindEntryDuringConcurrentPut() throws InterruptedException {
+        // given
+        var cache = new TieredHwCache<>(newHeap(Duration.ofHours(1)), offHeap);
+        cache.put(1L, "value1");
+        var done = new AtomicBoolean();
+        var misses = new AtomicInteger();
+        var reader = Thread.ofPlatform().start(() -> {
+            while (!done.get()) {
+                if (cache.get(1L) == null) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+
+        // when
+        // ключ 1 все время есть в одном из уровней: запись 2 вытесняет его из кучи, запись 1 возвращает обратно
+        for (var idx = 0; idx < 50_000; idx++) {
+            cache.put(1L, "value1");
+            cache.put(2L, "value2");
+        }
+        done.set(true);
+        reader.join();
+
+        // then
+        assertThat(misses.get()).isZero();
+    }
+
+    private static TinyLfuCache<Long, String> newHeap(Duration expireAfterWrite) {
+        return new TinyLfuCache.Builder<Long, String>()
+                .maximumSize(1)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package ru.otus.cachehw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("TimerWheel ")
+class TimerWheelTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final long HOUR = TimeUnit.HOURS.toNanos(1);
+
+    private final TimerWheel<String, String> timerWheel = new TimerWheel<>();
+
+    @Test
+    @DisplayName(" отдает запись, только когда время прошло ее корзину")
+    void shouldExpireNodeAfterItsBucket() {
+        // given
+        var node = newNode("key");
+        timerWheel.schedule(node, 100 * TimeUnit.MILLISECONDS.toNanos(1));
+
+        // when
+        var sameBucket = advance(500 * TimeUnit.MILLISECONDS.toNanos(1));
+        var nextBucket = advance(2 * SECOND);
+
+        // then
+        assertThat(sameBucket).isEmpty();
+        assertThat(nextBucket).containsExactly(node);
+        assertThat(node.timerNext).isNull();
+        assertThat(advance(3 * SECOND)).isEmpty();
+    }
+
+    @Test
+    @DisplayName(" переносит дальнюю запись на точные уровни и отдает ее не раньше срока")
+    void shouldCascadeDistantNode() {
+        // given
+        long deadline = 2 * HOUR;
+        var node = newNode("key");
+        timerWheel.schedule(node, deadline);
+        var expiredAt = new ArrayList<Long>();
+
+        // when
+        for (long time = MINUTE; time <= 3 * HOUR; time += MINUTE) {
+            long now = time;
+            timerWheel.advance(now, expiring -> {
+                if (deadline - now <= 0) {
+                    expiredAt.add(now);
+                } else {
+                    // запись из крупной корзины, срок которой еще не наступил
+                    timerWheel.schedule(expiring, deadline);
+                }
+            });
+        }
+
+        // then
+        assertThat(expiredAt).containsExactly(deadline);
+    }
+
+    @Test
+    @DisplayName(" не отдает снятую запись и сразу отдает запись с прошедшим сроком")
+    void shouldHandleDescheduleAndPastTime() {
+        // given
+        var descheduled = newNode("descheduled");
+        var overdue = newNode("overdue");
+        advance(10 * SECOND);
+        timerWheel.schedule(descheduled, 11 * SECOND);
+        timerWheel.deschedule(descheduled);
+        timerWheel.schedule(overdue, SECOND);
+
+        // when
+        var expired = advance(12 * SECOND);
+
+        // then
+        assertThat(expired).containsExactly(overdue);
+        assertThat(descheduled.timerNext).isNull();
+    }
+
+    private List<TinyLfuCache.Node<String, String>> advance(long time) {
+        var expired = new ArrayList<TinyLfuCache.Node<String, String>>();
+        timerWheel.advance(time, expired::add);
+        return expired;
+    }
+
+    private static TinyLfuCache.Node<String, String> newNode(String key) {
+        return new TinyLfuCache.Node<>(key, "value", 1);
+    }
+}
@@ -0,0 +1,162 @@
+package ru.otus.cachehw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("TinyLfuCache ")
+class TinyLfuCacheTest {
+
+    @Test
+    @DisplayName(" держит число записей в пределах maximumSize и сообщает о вытеснении")
+    void shouldKeepSizeWithinMaximum() {
+        // given
+        var cache = new TinyLfuCache.Builder<Integer, String>().maximumSize(100).build();
+        var evictions = new AtomicInteger();
+        cache.addListener((key, value, action) -> {
+            if ("evict".equals(action)) {
+                evictions.incrementAndGet();
+            }
+        });
+
+        // when
+        for (var key = 0; key < 1_000; key++) {
+            cache.put(key, "value" + key);
+        }
+
+        // then
+        assertThat(cache.estimatedSize()).isEqualTo(100);
+        assertThat(evictions.get()).isEqualTo(900);
+    }
+
+    @Test
+    @DisplayName(" не вытесняет часто читаемую запись потоком однократных")
+    void shouldKeepFrequentlyUsedEntry() {
+        // given
+        var cache = new TinyLfuCache.Builder<Integer, String>().maximumSize(100).build();
+        cache.put(-1, "hot");
+        for (var idx = 0; idx < 20; idx++) {
+            cache.get(-1);
+        }
+        cache.cleanUp();
+
+        // when
+        for (var key = 0; key < 1_000; key++) {
+            cache.put(key, "value" + key);
+        }
+
+        // then
+        assertThat(cache.get(-1)).isEqualTo("hot");
+    }
+
+    @Test
+    @DisplayName(" ограничивает суммарный вес и не хранит запись тяжелее maximumWeight")
+    void shouldKeepWeightWithinMaximum() {
+        // given
+        var cache = new TinyLfuCache.Builder<String, String>()
+                .maximumWeight(10)
+                .weigher((key, value) -> value.length())
+                .build();
+
+        // when
+        cache.put("a", "12345");
+        cache.put("b", "12345");
+        cache.put("c", "123");
+        cache.put("big", "12345678901");
+
+        // then
+        assertThat(cache.weightedSize()).isLessThanOrEqualTo(10);
+        assertThat(cache.get("big")).isNull();
+    }
+
+    @Test
+    @DisplayName(" заменяет значение по ключу и удаляет запись")
+    void shouldReplaceAndRemoveValue() {
+        // given
+        var cache = new TinyLfuCache.Builder<String, String>().maximumSize(10).build();
+        cache.put("key", "first");
+
+        // when
+        cache.put("key", "second");
+
+        // then
+        assertThat(cache.get("key")).isEqualTo("second");
+        assertThat(cache.estimatedSize()).isEqualTo(1);
+
+        // when
+        cache.remove("key");
+
+        // then
+        assertThat(cache.get("key")).isNull();
+        assertThat(cache.estimatedSize()).isZero();
+    }
+
+    @Test
+    @DisplayName(" перестает отдавать запись после expireAfterWrite и удаляет ее с событием expire")
+    void shouldExpireAfterWrite() throws InterruptedException {
+        // given
+        var cache = new TinyLfuCache.Builder<String, String>()
+                .maximumSize(10)
+                .expireAfterWrite(Duration.ofMillis(50))
+                .build();
+        var expired = new ArrayList<String>();
+        cache.addListener((key, value, action) -> {
+            if ("expire".equals(action)) {
+                expired.add(key);
+            }
+        });
+        cache.put("key", "value");
+
+        // when
+        var beforeDeadline = cache.get("key");
+        TimeUnit.MILLISECONDS.sleep(100);
+        var afterDeadline = cache.get("key");
+        // колесо таймеров снимает записи, когда время проходит корзину (около секунды)
+        TimeUnit.MILLISECONDS.sleep(1_100);
+        cache.cleanUp();
+
+        // then
+        assertThat(beforeDeadline).isEqualTo("value");
+        assertThat(afterDeadline).isNull();
+        assertThat(expired).containsExactly("key");
+        assertThat(cache.estimatedSize()).isZero();
+    }
+
+    @Test
+    @DisplayName(" продлевает срок expireAfterAccess при чтении")
+    void shouldExpireAfterAccess() throws InterruptedException {
+        // given
+        var cache = new TinyLfuCache.Builder<String, String>()
+                .maximumSize(10)
+                .expireAfterAccess(Duration.ofMillis(300))
+                .build();
+        cache.put("key", "value");
+
+        // when
+        var reads = new ArrayList<String>();
+        for (var idx = 0; idx < 5; idx++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+            reads.add(cache.get("key"));
+        }
+        TimeUnit.MILLISECONDS.sleep(400);
+
+        // then
+        assertThat(reads).containsOnly("value");
+        assertThat(cache.get("key")).isNull();
+    }
+
+    @Test
+    @DisplayName(" не строится без ограничения размера и с неположительным expectedEntries")
+    void shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> new TinyLfuCache.Builder<String, String>().build())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new TinyLfuCache.Builder<String, String>().expectedEntries(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
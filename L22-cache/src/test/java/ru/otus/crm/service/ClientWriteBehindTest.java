@@ -0,0 +1,144 @@
+package ru.otus.crm.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.core.sessionmanager.DataBaseOperationException;
+import ru.otus.crm.model.Client;
+
+@DisplayName("ClientWriteBehind ")
+class ClientWriteBehindTest {
+    // фоновый поток не успевает сработать сам, пачки пишутся явным flush()
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    private final InMemoryClientTemplate dataTemplate = new InMemoryClientTemplate();
+    private ClientWriteBehind writeBehind;
+
+    @AfterEach
+    void tearDown() {
+        dataTemplate.failing = false;
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+    }
+
+    @Test
+    @DisplayName(" оставляет в очереди последнее состояние клиента и пишет его при flush")
+    void shouldCoalesceUpdatesById() {
+        // given
+        writeBehind = new ClientWriteBehind(new DirectTransactionRunner(), dataTemplate, 100, NEVER);
+
+        // when
+        writeBehind.update(new Client(1L, "first"));
+        writeBehind.update(new Client(1L, "second"));
+        writeBehind.update(new Client(2L, "other"));
+
+        // then
+        assertThat(writeBehind.pending(1L)).map(Client::getName).contains("second");
+
+        // when
+        writeBehind.flush();
+
+        // then
+        assertThat(dataTemplate.names).containsExactlyInAnyOrderEntriesOf(Map.of(1L, "second", 2L, "other"));
+        assertThat(dataTemplate.updateAllCalls.get()).isEqualTo(1);
+        assertThat(writeBehind.pending(1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName(" выбрасывает изменение после MAX_WRITE_ATTEMPTS неудачных записей и сообщает о нем")
+    void shouldDropUpdateAfterMaxAttempts() {
+        // given
+        writeBehind = new ClientWriteBehind(new DirectTransactionRunner(), dataTemplate, 100, NEVER);
+        var dropped = new ArrayList<Client>();
+        writeBehind.setDropListener(dropped::add);
+        dataTemplate.failing = true;
+        var client = new Client(1L, "name");
+        writeBehind.update(client);
+
+        // when
+        for (var attempt = 1; attempt <= ClientWriteBehind.MAX_WRITE_ATTEMPTS; attempt++) {
+            assertThatThrownBy(writeBehind::flush).isInstanceOf(DataBaseOperationException.class);
+        }
+
+        // then
+        assertThat(writeBehind.droppedUpdates()).isEqualTo(1);
+        assertThat(dropped).containsExactly(client);
+        assertThat(writeBehind.pending(1L)).isEmpty();
+        dataTemplate.failing = false;
+        writeBehind.flush();
+        assertThat(dataTemplate.names).isEmpty();
+    }
+
+    @Test
+    @DisplayName(" дает новые попытки состоянию, поставленному во время неудачной записи")
+    void shouldResetAttemptsForNewerState() {
+        // given
+        writeBehind = new ClientWriteBehind(new DirectTransactionRunner(), dataTemplate, 100, NEVER);
+        dataTemplate.failing = true;
+        writeBehind.update(new Client(1L, "old"));
+        assertThatThrownBy(writeBehind::flush).isInstanceOf(DataBaseOperationException.class);
+        dataTemplate.onFailure = () -> writeBehind.update(new Client(1L, "new"));
+        assertThatThrownBy(writeBehind::flush).isInstanceOf(DataBaseOperationException.class);
+        dataTemplate.onFailure = null;
+
+        // when
+        for (var attempt = 1; attempt < ClientWriteBehind.MAX_WRITE_ATTEMPTS; attempt++) {
+            assertThatThrownBy(writeBehind::flush).isInstanceOf(DataBaseOperationException.class);
+        }
+        dataTemplate.failing = false;
+        writeBehind.flush();
+
+        // then
+        assertThat(writeBehind.droppedUpdates()).isZero();
+        assertThat(dataTemplate.names).containsExactlyEntriesOf(Map.of(1L, "new"));
+    }
+
+    @Test
+    @DisplayName(" возвращает из insert id, назначенный при записи пачки")
+    void shouldReturnIdFromInsert() {
+        // given
+        writeBehind = new ClientWriteBehind(new DirectTransactionRunner(), dataTemplate, 1, NEVER);
+
+        // when
+        long id = writeBehind.insert(new Client("name"));
+
+        // then
+        assertThat(dataTemplate.names).containsExactlyEntriesOf(Map.of(id, "name"));
+    }
+
+    @Test
+    @DisplayName(" считает пачку неудачной, если insertAll вернул не все id, и повторяет ее изменения")
+    void shouldFailBatchWhenIdsAreMissing() {
+        // given
+        writeBehind = new ClientWriteBehind(new DirectTransactionRunner(), dataTemplate, 2, NEVER);
+        dataTemplate.missingIds = true;
+        writeBehind.update(new Client(100L, "name"));
+
+        // when
+        assertThatThrownBy(() -> writeBehind.insert(new Client("new")))
+                .isInstanceOf(DataBaseOperationException.class);
+        dataTemplate.missingIds = false;
+        writeBehind.flush();
+
+        // then
+        assertThat(dataTemplate.names).containsEntry(100L, "name");
+        assertThat(writeBehind.droppedUpdates()).isZero();
+    }
+
+    @Test
+    @DisplayName(" не создается с неположительными maxBatchSize и maxDelay")
+    void shouldRejectInvalidSettings() {
+        var transactionRunner = new DirectTransactionRunner();
+        assertThatThrownBy(() -> new ClientWriteBehind(transactionRunner, dataTemplate, 0, NEVER))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ClientWriteBehind(transactionRunner, dataTemplate, 1, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
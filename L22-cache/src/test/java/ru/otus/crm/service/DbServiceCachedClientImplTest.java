@@ -0,0 +1,94 @@
+package ru.otus.crm.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.cachehw.QueryResultCache;
+import ru.otus.cachehw.TinyLfuCache;
+import ru.otus.core.sessionmanager.DataBaseOperationException;
+import ru.otus.crm.model.Client;
+
+@DisplayName("DbServiceCachedClientImpl ")
+class DbServiceCachedClientImplTest {
+    private final InMemoryClientTemplate dataTemplate = new InMemoryClientTemplate();
+    private final TinyLfuCache<Long, Client> cache =
+            new TinyLfuCache.Builder<Long, Client>().maximumSize(100).build();
+    private final QueryResultCache<Client> queryCache = new QueryResultCache<>(10, true);
+    private ClientWriteBehind writeBehind;
+
+    @AfterEach
+    void tearDown() {
+        dataTemplate.failing = false;
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+    }
+
+    @Test
+    @DisplayName(" убирает из кэшей изменение, которое write-behind так и не записал")
+    void shouldEvictDroppedWriteBehindUpdate() {
+        // given
+        writeBehind = new ClientWriteBehind(new DirectTransactionRunner(), dataTemplate, 100, Duration.ofHours(1));
+        var service = new DbServiceCachedClientImpl(
+                new DirectTransactionRunner(), dataTemplate, cache, writeBehind, queryCache);
+        dataTemplate.names.put(1L, "stored");
+        service.saveClient(new Client(1L, "unsaved"));
+        long versionAfterSave = queryCache.version();
+        dataTemplate.failing = true;
+
+        // when
+        for (var attempt = 1; attempt <= ClientWriteBehind.MAX_WRITE_ATTEMPTS; attempt++) {
+            assertThatThrownBy(writeBehind::flush).isInstanceOf(DataBaseOperationException.class);
+        }
+
+        // then
+        assertThat(cache.get(1L)).isNull();
+        assertThat(queryCache.version()).isGreaterThan(versionAfterSave);
+        assertThat(service.getClient(1L)).get().extracting(Client::getName).isEqualTo("stored");
+    }
+
+    @Test
+    @DisplayName(" кладет строки списка в поштучный кэш, и повторный findAll обходится без БД")
+    void shouldCacheListRowsForIdSnapshots() {
+        // given
+        var service =
+                new DbServiceCachedClientImpl(new DirectTransactionRunner(), dataTemplate, cache, null, queryCache);
+        dataTemplate.names.put(1L, "first");
+        dataTemplate.names.put(2L, "second");
+
+        // when
+        service.findAll();
+        var cached = service.findAll();
+
+        // then
+        assertThat(dataTemplate.findAllCalls.get()).isEqualTo(1);
+        assertThat(cached).extracting(Client::getName).containsExactlyInAnyOrder("first", "second");
+        assertThat(cache.get(1L)).extracting(Client::getName).isEqualTo("first");
+        assertThat(cache.get(2L)).extracting(Client::getName).isEqualTo("second");
+    }
+
+    @Test
+    @DisplayName(" не кладет строки списка в кэш, если во время чтения клиент был сохранен")
+    void shouldNotCacheListRowsReadBeforeConcurrentSave() {
+        // given
+        var service =
+                new DbServiceCachedClientImpl(new DirectTransactionRunner(), dataTemplate, cache, null, queryCache);
+        dataTemplate.names.put(1L, "old");
+
+        // when
+        var clients = service.findAll("client.all", List.of(), connection -> {
+            var stale = dataTemplate.findAll(connection);
+            service.saveClient(new Client(1L, "new"));
+            return stale;
+        });
+
+        // then
+        assertThat(clients).extracting(Client::getName).containsExactly("old");
+        assertThat(cache.get(1L)).extracting(Client::getName).isEqualTo("new");
+    }
+}
@@ -0,0 +1,12 @@
+package ru.otus.crm.service;
+
+import ru.otus.core.sessionmanager.TransactionAction;
+import ru.otus.core.sessionmanager.TransactionRunner;
+
+/** Выполняет действие сразу, без соединения: для сервисов поверх DataTemplate в памяти */
+class DirectTransactionRunner implements TransactionRunner {
+    @Override
+    public <T> T doInTransaction(TransactionAction<T> action) {
+        return action.apply(null);
+    }
+}
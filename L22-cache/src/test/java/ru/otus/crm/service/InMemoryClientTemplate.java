@@ -0,0 +1,81 @@
+package ru.otus.crm.service;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import ru.otus.core.repository.DataTemplate;
+import ru.otus.core.sessionmanager.DataBaseOperationException;
+import ru.otus.crm.model.Client;
+
+/**
+ * Клиенты в памяти; при failing запись пачки падает, как при ошибке БД,
+ * при missingIds insertAll не возвращает id вставленных строк
+ */
+class InMemoryClientTemplate implements DataTemplate<Client> {
+    final Map<Long, String> names = new ConcurrentHashMap<>();
+    final AtomicLong updateAllCalls = new AtomicLong();
+    final AtomicLong findAllCalls = new AtomicLong();
+    volatile boolean failing;
+    volatile Runnable onFailure;
+    volatile boolean missingIds;
+    private final AtomicLong ids = new AtomicLong();
+
+    @Override
+    public Optional<Client> findById(Connection connection, long id) {
+        return Optional.ofNullable(names.get(id)).map(name -> new Client(id, name));
+    }
+
+    @Override
+    public List<Client> findAll(Connection connection) {
+        findAllCalls.incrementAndGet();
+        return names.entrySet().stream()
+                .map(entry -> new Client(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    @Override
+    public List<Client> findPage(Connection connection, long afterId, int limit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long insert(Connection connection, Client client) {
+        checkFailing();
+        long id = ids.incrementAndGet();
+        names.put(id, client.getName());
+        return id;
+    }
+
+    @Override
+    public void update(Connection connection, Client client) {
+        checkFailing();
+        names.put(client.getId(), client.getName());
+    }
+
+    @Override
+    public List<Long> insertAll(Connection connection, List<Client> clients) {
+        var ids = DataTemplate.super.insertAll(connection, clients);
+        return missingIds ? List.of() : ids;
+    }
+
+    @Override
+    public void updateAll(Connection connection, List<Client> clients) {
+        if (!clients.isEmpty()) {
+            updateAllCalls.incrementAndGet();
+        }
+        DataTemplate.super.updateAll(connection, clients);
+    }
+
+    private void checkFailing() {
+        if (failing) {
+            var action = onFailure;
+            if (action != null) {
+                action.run();
+            }
+            throw new DataBaseOperationException("write failed", new IllegalStateException());
+        }
+    }
+}
@@ -16,6 +16,10 @@ import ru.otus.dto.ClientDto;
 @SuppressWarnings({"java:S1989"})
 public class ClientsApiServlet extends HttpServlet {
 
+    private static final String PARAM_AFTER_ID = "afterId";
+    private static final String PARAM_LIMIT = "limit";
+    private static final int MAX_PAGE_SIZE = 1_000;
+
     private final transient DBServiceClient dbServiceClient;
     private final transient Gson gson;
 
@@ -24,10 +28,27 @@ public class ClientsApiServlet extends HttpServlet {
         this.gson = gson;
     }
 
+    /** С параметром limit отдает одну страницу: ?afterId=<последний id предыдущей страницы>&limit=<размер> */
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        List<ClientDto> clients = dbServiceClient.findAll().stream()
+        List<Client> found;
+        var limitParam = request.getParameter(PARAM_LIMIT);
+        if (limitParam == null) {
+            found = dbServiceClient.findAll();
+        } else {
+            var afterIdParam = request.getParameter(PARAM_AFTER_ID);
+            try {
+                long afterId = afterIdParam == null ? 0 : Long.parseLong(afterIdParam);
+                int limit = Math.clamp(Integer.parseInt(limitParam), 1, MAX_PAGE_SIZE);
+                found = dbServiceClient.findPage(afterId, limit);
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "afterId and limit must be numbers");
+                return;
+            }
+        }
+        List<ClientDto> clients = found.stream()
                 .map(client -> new ClientDto(
+                        client.getId(),
                         client.getName(),
                         client.getAddress() != null
                                 ? new ClientDto.AddressDto(client.getAddress().getStreet())